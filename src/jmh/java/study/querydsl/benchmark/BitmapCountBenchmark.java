@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberBitmapIndex 와 같은 구성(팀별, 나이별 비트맵)으로 넓은 조건의 전체 건수 계산 시간 측정
+ * 예) teamName = teamX and age between 20 and 60 → 팀 비트맵 ∩ (나이 비트맵 41 개의 합집합) 의 cardinality
+ *
+ * ./gradlew jmh -Pjmh.includes=BitmapCountBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BitmapCountBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int members;
+
+    private static final int TEAMS = 10;
+    private static final int AGES = 100;
+
+    private RoaringBitmap[] byTeam;
+    private RoaringBitmap[] byAge;
+
+    @Setup
+    public void setUp() {
+        byTeam = new RoaringBitmap[TEAMS];
+        byAge = new RoaringBitmap[AGES];
+        for (int i = 0; i < TEAMS; i++) {
+            byTeam[i] = new RoaringBitmap();
+        }
+        for (int i = 0; i < AGES; i++) {
+            byAge[i] = new RoaringBitmap();
+        }
+        for (int id = 1; id <= members; id++) {
+            byTeam[id % TEAMS].add(id);
+            byAge[(id * 31) % AGES].add(id);
+        }
+        Arrays.stream(byTeam).forEach(RoaringBitmap::runOptimize);
+        Arrays.stream(byAge).forEach(RoaringBitmap::runOptimize);
+    }
+
+    @Benchmark
+    public long teamCount() {
+        return byTeam[3].getLongCardinality();
+    }
+
+    @Benchmark
+    public long teamAndAgeRangeCount() {
+        RoaringBitmap ages = FastAggregation.or(Arrays.asList(byAge).subList(20, 61).iterator());
+        return RoaringBitmap.andCardinality(byTeam[3], ages);
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.controller.json.MemberTeamDtoSerializer;
+import study.querydsl.controller.json.PageSerializer;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page<MemberTeamDto> 응답 직렬화 비교 (기본 BeanSerializer vs 직접 작성한 streaming serializer)
+ * 응답 크기(bytes)는 setUp 에서 출력, 응답당 시간은 JMH 결과 (-prof gc 로 응답당 할당량도 확인 가능)
+ *
+ * ./gradlew jmh -Pjmh.includes=PageSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private Page<MemberTeamDto> page;
+    private ObjectMapper defaultMapper;
+    private ObjectMapper streamingMapper;
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() throws Exception {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 2), i % 2 == 0 ? "teamA" : "teamB"));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+
+        defaultMapper = new ObjectMapper();
+
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(MemberTeamDto.class, new MemberTeamDtoSerializer());
+        module.addSerializer((Class) Page.class, new PageSerializer());
+        streamingMapper = new ObjectMapper().registerModule(module);
+
+        System.out.printf("%npageSize=%d default=%d bytes, streaming=%d bytes%n", pageSize,
+                defaultMapper.writeValueAsBytes(page).length, streamingMapper.writeValueAsBytes(page).length);
+    }
+
+    @Benchmark
+    public byte[] defaultSerializer() throws Exception {
+        return defaultMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] streamingSerializer() throws Exception {
+        return streamingMapper.writeValueAsBytes(page);
+    }
+}
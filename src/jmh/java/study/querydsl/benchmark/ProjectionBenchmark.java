@@ -0,0 +1,100 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.repository.support.FastProjections;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * DTO 프로젝션 row 변환 비용 비교 (DB 조회 제외, FactoryExpression.newInstance 만 측정)
+ * 1,000,000 row 를 변환하고 row 당 평균 시간을 ns 로 출력
+ *
+ * ./gradlew jmh -Pjmh.includes=ProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private Object[][] rows;
+
+    private FactoryExpression<MemberDto> queryProjection;
+    private FactoryExpression<MemberDto> constructor;
+    private FactoryExpression<MemberDto> reflectiveBean;
+    private FactoryExpression<MemberDto> reflectiveFields;
+    private FactoryExpression<MemberDto> fastBean;
+    private FactoryExpression<MemberDto> fastFields;
+
+    @Setup
+    public void setUp() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+
+        queryProjection = new QMemberDto(member.username, member.age);
+        constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        reflectiveBean = Projections.bean(MemberDto.class, member.username, member.age);
+        reflectiveFields = Projections.fields(MemberDto.class, member.username, member.age);
+        fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+        fastFields = FastProjections.fields(MemberDto.class, member.username, member.age);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void queryProjection(Blackhole bh) {
+        convert(queryProjection, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void constructor(Blackhole bh) {
+        convert(constructor, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflectiveBean(Blackhole bh) {
+        convert(reflectiveBean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflectiveFields(Blackhole bh) {
+        convert(reflectiveFields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastBean(Blackhole bh) {
+        convert(fastBean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastFields(Blackhole bh) {
+        convert(fastFields, bh);
+    }
+
+    private void convert(FactoryExpression<MemberDto> projection, Blackhole bh) {
+        for (Object[] row : rows) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 컬럼 + team 조인 검색(search) vs 필요한 컬럼만 조인 없이 검색(searchFields) 비교
+ * 인메모리 H2 에 회원을 넣고 조건 없이 전체 조회, 응답 크기(bytes)는 setUp 에서 출력
+ *
+ * ./gradlew jmh -Pjmh.includes=SparseFieldsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SparseFieldsBenchmark {
+
+    @Param({"10000"})
+    private int members;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final List<MemberField> idAndUsername = MemberField.parse("memberId,username");
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.profiles.active=bench",
+                        "spring.datasource.url=jdbc:h2:mem:sparse;DB_CLOSE_DELAY=-1",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "member.search.cache.enabled=false")
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            EntityManager em = context.getBean(EntityManager.class);
+            Team[] teams = new Team[10];
+            for (int i = 0; i < teams.length; i++) {
+                teams[i] = new Team("team" + i);
+                em.persist(teams[i]);
+            }
+            for (int i = 0; i < members; i++) {
+                em.persist(new Member("member" + i, i % 100, teams[i % teams.length]));
+                if (i % 1000 == 0) {
+                    em.flush();
+                    em.clear();
+                    for (int t = 0; t < teams.length; t++) {
+                        teams[t] = em.getReference(Team.class, teams[t].getId());
+                    }
+                }
+            }
+        });
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        System.out.printf("%nmembers=%d full=%d bytes, sparse=%d bytes%n", members,
+                objectMapper.writeValueAsBytes(fullSearch()).length,
+                objectMapper.writeValueAsBytes(sparseSearch()).length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object fullSearch() {
+        return readOnlyTransaction.execute(status -> memberRepository.search(condition));
+    }
+
+    @Benchmark
+    public Object sparseSearch() {
+        return readOnlyTransaction.execute(status -> memberRepository.searchFields(condition, idAndUsername));
+    }
+}
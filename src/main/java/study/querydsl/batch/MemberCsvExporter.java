@@ -0,0 +1,232 @@
+package study.querydsl.batch;
+
+import lombok.Value;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * member left join team 전체를 CSV 로 추출
+ * * member.id 범위를 파티션으로 나누고 ForkJoinPool 에서 파티션마다 별도 커넥션의 StatelessSession 으로 읽음
+ *   (영속성 컨텍스트가 없으므로 전체를 읽어도 메모리가 늘지 않음)
+ * * 파티션마다 임시 chunk 파일에 쓴 뒤 id 순서대로 이어 붙임
+ * * gzip 이면 chunk 마다 gzip 멤버로 쓰고 그대로 이어 붙임 (여러 멤버로 된 gzip 도 유효한 gzip 파일)
+ *
+ * 동시에 커넥션을 parallelism 개 사용하므로 커넥션 풀 크기보다 작게 설정해야 함
+ *
+ * 파티션마다 트랜잭션이 따로이므로 추출 결과는 한 시점의 스냅샷이 아니다.
+ * * id 범위(min, max)는 시작할 때 한 번만 읽으므로 그 이후 추가된 회원은 포함되지 않음 (id 는 시퀀스로 증가)
+ * * 추출 중에 수정/삭제된 회원, 이름이 바뀐 팀은 파티션을 읽은 시점에 따라 변경 전 또는 후의 값으로 나옴
+ * 한 시점의 데이터가 필요하면 쓰기가 없는 시간에 실행해야 함
+ */
+@Component
+public class MemberCsvExporter {
+
+    private static final String HEADER = "member_id,username,age,team_id,team_name\n";
+    private static final String QUERY = "select m.id, m.username, m.age, t.id, t.name" +
+            " from Member m left join m.team t" +
+            " where m.id between :from and :to" +
+            " order by m.id";
+
+    private final SessionFactory sessionFactory;
+
+    public MemberCsvExporter(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public ExportResult export(Path target, boolean gzip, int parallelism, int partitionsPerThread) throws IOException {
+        long start = System.nanoTime();
+        List<IdRange> ranges = partition(parallelism * partitionsPerThread);
+
+        Path chunkDirectory = Files.createTempDirectory(target.toAbsolutePath().getParent(), "member-export-");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                IdRange range = ranges.get(i);
+                Path chunkFile = chunkDirectory.resolve(String.format("chunk-%05d", i));
+                tasks.add(() -> exportPartition(range, chunkFile, gzip));
+            }
+
+            long rows = 0;
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(out, gzip);
+                for (Future<Chunk> future : pool.invokeAll(tasks)) {
+                    Chunk chunk = future.get();
+                    rows += chunk.getRows();
+                    append(out, chunk.getFile());
+                }
+            }
+
+            long elapsedNanos = System.nanoTime() - start;
+            return new ExportResult(rows, Files.size(target), ranges.size(), parallelism, elapsedNanos / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("member export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("member export failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            deleteQuietly(chunkDirectory);
+        }
+    }
+
+    // 모든 파티션의 범위가 이 시점의 max(id) 를 넘지 않음
+    List<IdRange> partition(int count) {
+        Object[] bounds;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            bounds = session.createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                    .getSingleResult();
+        }
+
+        List<IdRange> ranges = new ArrayList<>();
+        if (bounds[0] == null) {
+            return ranges; // 회원 없음
+        }
+        long min = (Long) bounds[0];
+        long max = (Long) bounds[1];
+        long step = Math.max(1, (max - min + count) / count);
+        for (long from = min; from <= max; from += step) {
+            ranges.add(new IdRange(from, Math.min(max, from + step - 1)));
+        }
+        return ranges;
+    }
+
+    private Chunk exportPartition(IdRange range, Path chunkFile, boolean gzip) throws IOException {
+        long rows = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             Writer writer = writer(chunkFile, gzip)) {
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults results = session.createQuery(QUERY, Object[].class)
+                    .setParameter("from", range.getFrom())
+                    .setParameter("to", range.getTo())
+                    .setReadOnly(true)
+                    .setFetchSize(1000)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                StringBuilder line = new StringBuilder(128);
+                while (results.next()) {
+                    Object[] row = results.get();
+                    line.setLength(0);
+                    line.append(row[0]).append(',');
+                    appendCsv(line, (String) row[1]).append(',');
+                    line.append(row[2]).append(',');
+                    if (row[3] != null) {
+                        line.append(row[3]);
+                    }
+                    line.append(',');
+                    appendCsv(line, (String) row[4]).append('\n');
+                    writer.append(line);
+                    rows++;
+                }
+            } finally {
+                transaction.rollback(); // 읽기 전용
+            }
+        }
+        return new Chunk(chunkFile, rows);
+    }
+
+    private Writer writer(Path file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out, 64 * 1024);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void writeHeader(FileChannel out, boolean gzip) throws IOException {
+        Path header = Files.createTempFile("member-export-header", gzip ? ".csv.gz" : ".csv");
+        try {
+            try (Writer writer = writer(header, gzip)) {
+                writer.write(HEADER);
+            }
+            append(out, header);
+        } finally {
+            Files.deleteIfExists(header);
+        }
+    }
+
+    private void append(FileChannel out, Path chunk) throws IOException {
+        try (FileChannel in = FileChannel.open(chunk, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Files.deleteIfExists(directory);
+        } catch (IOException | UncheckedIOException ignored) {
+            // 임시 파일 정리 실패는 추출 결과에 영향 없음
+        }
+    }
+
+    @Value
+    static class IdRange {
+        long from;
+        long to;
+    }
+
+    @Value
+    static class Chunk {
+        Path file;
+        long rows;
+    }
+
+    @Value
+    public static class ExportResult {
+        long rows;
+        long bytes;
+        int partitions;
+        int parallelism;
+        long elapsedMillis;
+
+        public long getRowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+        }
+    }
+}
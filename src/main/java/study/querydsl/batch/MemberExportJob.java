@@ -0,0 +1,72 @@
+package study.querydsl.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 야간 회원 전체 CSV 추출
+ * member.export.cron 을 지정하면 실행 (기본값 "-" 은 비활성)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberExportJob {
+
+    private final MemberCsvExporter memberCsvExporter;
+    private final DataSource dataSource;
+
+    @Value("${member.export.directory:export}")
+    private String directory;
+
+    @Value("${member.export.gzip:true}")
+    private boolean gzip;
+
+    // 동시에 사용하는 커넥션 수, 0 이면 코어 수와 커넥션 풀 크기로 결정
+    @Value("${member.export.parallelism:0}")
+    private int parallelism;
+
+    @Value("${member.export.partitions-per-thread:4}")
+    private int partitionsPerThread;
+
+    @Scheduled(cron = "${member.export.cron:-}")
+    public void exportNightly() throws IOException {
+        Path dir = Files.createDirectories(Paths.get(directory));
+        String fileName = "members-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + (gzip ? ".csv.gz" : ".csv");
+
+        MemberCsvExporter.ExportResult result = memberCsvExporter.export(dir.resolve(fileName), gzip, effectiveParallelism(), partitionsPerThread);
+
+        log.info("member export {} : rows={}, bytes={}, partitions={}, parallelism={}, elapsed={}ms, throughput={} rows/s",
+                fileName, result.getRows(), result.getBytes(), result.getPartitions(), result.getParallelism(),
+                result.getElapsedMillis(), result.getRowsPerSecond());
+    }
+
+    // 코어 수만큼 병렬로 읽되, 서비스 요청이 쓸 커넥션 2개는 남겨둠
+    private int effectiveParallelism() {
+        if (parallelism > 0) {
+            return parallelism;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = cores;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.debug("cannot resolve connection pool size", e);
+        }
+        return Math.max(1, Math.min(cores, poolSize - 2));
+    }
+}
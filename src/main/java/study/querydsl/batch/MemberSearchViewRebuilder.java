@@ -0,0 +1,61 @@
+package study.querydsl.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * member_search_view 전체 재생성 (member left join team 결과로 채움)
+ * * 읽기 모델을 켜고 기동하면 한 번 실행 (기존 데이터 backfill)
+ * * member.search.view.rebuild-cron 을 지정하면 주기적으로 실행 (벌크 연산 등 이벤트 없이 바뀐 데이터 보정)
+ *
+ * 전체를 지우고 다시 넣으면 그 사이 MemberSearchViewMaintainer 가 넣은 행과 member_id 가 겹치거나(중복 키)
+ * 재생성이 읽지 못한 변경이 지워지므로, 행 단위로 merge(있으면 수정, 없으면 추가) 한 뒤 원본이 없는 행만 지운다.
+ * * 행 단위 잠금이라 재생성 중에도 회원 변경이 막히지 않음
+ * * 재생성 중에 커밋된 변경은 merge 가 읽은 시점의 값으로 덮일 수 있지만, 해당 회원의 다음 변경이나 다음 재생성 때 바로잡힌다
+ */
+@Slf4j
+@Component
+public class MemberSearchViewRebuilder {
+
+    // H2 문법 (다른 DB 는 MERGE ... USING ... ON 또는 INSERT ... ON CONFLICT)
+    private static final String MERGE = "merge into member_search_view (member_id, username, age, team_id, team_name) key (member_id) "
+            + "select m.member_id, m.username, m.age, t.id, t.name from member m left join team t on m.team_id = t.id";
+    private static final String DELETE_ORPHANS = "delete from member_search_view v "
+            + "where not exists (select 1 from member m where m.member_id = v.member_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+
+    public MemberSearchViewRebuilder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     @Value("${member.search.view.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${member.search.view.rebuild-cron:-}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        int[] rows = transaction.execute(status -> new int[]{
+                jdbcTemplate.update(MERGE),
+                jdbcTemplate.update(DELETE_ORPHANS)
+        });
+        log.info("member_search_view rebuilt: merged={}, deleted={}, elapsed={}ms",
+                rows[0], rows[1], (System.nanoTime() - start) / 1_000_000);
+    }
+}
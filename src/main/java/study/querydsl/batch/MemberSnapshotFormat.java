@@ -0,0 +1,104 @@
+package study.querydsl.batch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Member/Team 스냅샷 바이너리 포맷 (고정 길이 레코드, big-endian)
+ *
+ * header (64 bytes)
+ *   int    magic        "QDSN"
+ *   int    version
+ *   int    teamRecordSize
+ *   int    memberRecordSize
+ *   long   teamCount
+ *   long   memberCount
+ *   ...    padding
+ * team record (72 bytes) * teamCount
+ *   long   id
+ *   string name         (short length + 62 bytes, null 이면 length -1)
+ * member record (88 bytes) * memberCount
+ *   long   id
+ *   long   teamId       (팀이 없으면 -1)
+ *   int    age
+ *   string username     (short length + 62 bytes)
+ *   ...    padding 4 bytes
+ *
+ * 레코드 위치가 인덱스로 바로 계산되므로 메모리 매핑한 파일에서 복사 없이 필드를 읽을 수 있다.
+ */
+final class MemberSnapshotFormat {
+
+    static final int MAGIC = 0x5144534E; // "QDSN"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int STRING_BYTES = 62;
+    static final int STRING_SLOT = 2 + STRING_BYTES;
+
+    static final int TEAM_RECORD_SIZE = 72;
+    static final int TEAM_ID = 0;
+    static final int TEAM_NAME = 8;
+
+    static final int MEMBER_RECORD_SIZE = 88;
+    static final int MEMBER_ID = 0;
+    static final int MEMBER_TEAM_ID = 8;
+    static final int MEMBER_AGE = 16;
+    static final int MEMBER_USERNAME = 20;
+
+    static final long NO_TEAM = -1L;
+
+    private MemberSnapshotFormat() {
+    }
+
+    static long teamOffset(long index) {
+        return HEADER_SIZE + index * TEAM_RECORD_SIZE;
+    }
+
+    static long memberOffset(long teamCount, long index) {
+        return HEADER_SIZE + teamCount * TEAM_RECORD_SIZE + index * MEMBER_RECORD_SIZE;
+    }
+
+    static void writeHeader(ByteBuffer buffer, long teamCount, long memberCount) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, TEAM_RECORD_SIZE);
+        buffer.putInt(12, MEMBER_RECORD_SIZE);
+        buffer.putLong(16, teamCount);
+        buffer.putLong(24, memberCount);
+    }
+
+    static void checkHeader(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a member snapshot file");
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(8) != TEAM_RECORD_SIZE || buffer.getInt(12) != MEMBER_RECORD_SIZE) {
+            throw new IllegalArgumentException("unsupported member snapshot version " + buffer.getInt(4));
+        }
+    }
+
+    static void putString(ByteBuffer buffer, int offset, String value) {
+        if (value == null) {
+            buffer.putShort(offset, (short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > STRING_BYTES) {
+            throw new IllegalArgumentException("value longer than " + STRING_BYTES + " bytes: " + value);
+        }
+        buffer.putShort(offset, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(offset + 2 + i, bytes[i]);
+        }
+    }
+
+    static String getString(ByteBuffer buffer, int offset, byte[] scratch) {
+        int length = buffer.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.search.MemberSearchCache;
+
+import java.nio.file.Paths;
+
+/**
+ * InitMember 처럼 row 단위 persist 로 데이터를 만드는 대신 스냅샷 파일로 환경을 채움
+ * 예) --member.snapshot.load=/data/members.snapshot
+ *
+ * 인메모리 검색 구조는 이 다음(ApplicationReadyEvent)에 만들어지지만, 웹 서버는 이미 요청을 받고 있으므로
+ * 로드 중에 캐시된 검색 결과와 ETag 버전은 로드 후 무효화한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty("member.snapshot.load")
+public class MemberSnapshotRunner implements ApplicationRunner {
+
+    private final MemberSnapshotService memberSnapshotService;
+    private final MemberSearchCache memberSearchCache;
+
+    @Value("${member.snapshot.load}")
+    private String snapshotFile;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        memberSnapshotService.load(Paths.get(snapshotFile));
+        memberSearchCache.invalidateAll();
+    }
+}
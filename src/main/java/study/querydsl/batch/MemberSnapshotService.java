@@ -0,0 +1,266 @@
+package study.querydsl.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import static study.querydsl.batch.MemberSnapshotFormat.*;
+
+/**
+ * Member/Team 스냅샷 덤프/로드 (MemberSnapshotFormat)
+ * * dump : DB 커서(fetch size)로 읽어서 메모리 매핑한 파일 윈도우에 레코드를 바로 씀
+ * * load : 메모리 매핑한 파일에서 레코드를 읽어서 JDBC batch insert
+ *
+ * 엔티티/영속성 컨텍스트를 거치지 않고, 대량 처리 시 statement 마다 로그가 남지 않도록 p6spy 를 우회해서 커넥션을 얻는다.
+ * 로드는 스키마가 만들어져 있고 대상 테이블이 비어 있다고 가정한다.
+ *
+ * 로드는 기동 중(MemberSnapshotRunner)에만 가능하다.
+ * Hibernate 이벤트가 발행되지 않으므로 DB 에서 만드는 인메모리 구조(UsernameBloomFilter, UsernameNgramIndex, TeamNameRegistry,
+ * MemberBitmapIndex, TeamAgeCountMatrix 등)는 로드된 행을 모른다. 이 구조들은 ApplicationRunner 다음인
+ * ApplicationReadyEvent 에서 만들어지므로 그 전에 로드해야 하고, 이후에는 IllegalStateException.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberSnapshotService {
+
+    // 한 번에 매핑하는 레코드 수 (매핑 하나는 2GB 를 넘을 수 없음)
+    private static final int RECORDS_PER_WINDOW = 64 * 1024;
+    private static final int FETCH_SIZE = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int COMMIT_INTERVAL = 100_000;
+
+    private final DataSource dataSource;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ready = true;
+    }
+
+    public SnapshotResult dump(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = rawDataSource().getConnection();
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false); // 커서로 읽기 위해 (드라이버에 따라 autocommit 이면 전체를 메모리에 올림)
+
+            long teamCount = 0;
+            RecordWindow teams = new RecordWindow(channel, HEADER_SIZE, TEAM_RECORD_SIZE);
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery("select id, name from team order by id")) {
+                    while (rs.next()) {
+                        MappedByteBuffer buffer = teams.at(teamCount);
+                        int base = teams.position(teamCount);
+                        buffer.putLong(base + TEAM_ID, rs.getLong(1));
+                        putString(buffer, base + TEAM_NAME, rs.getString(2));
+                        teamCount++;
+                    }
+                }
+            }
+
+            long memberCount = 0;
+            RecordWindow members = new RecordWindow(channel, memberOffset(teamCount, 0), MEMBER_RECORD_SIZE);
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery("select member_id, team_id, age, username from member order by member_id")) {
+                    while (rs.next()) {
+                        MappedByteBuffer buffer = members.at(memberCount);
+                        int base = members.position(memberCount);
+                        buffer.putLong(base + MEMBER_ID, rs.getLong(1));
+                        long teamId = rs.getLong(2);
+                        buffer.putLong(base + MEMBER_TEAM_ID, rs.wasNull() ? NO_TEAM : teamId);
+                        buffer.putInt(base + MEMBER_AGE, rs.getInt(3));
+                        putString(buffer, base + MEMBER_USERNAME, rs.getString(4));
+                        memberCount++;
+                    }
+                }
+            }
+            connection.rollback();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            writeHeader(header, teamCount, memberCount);
+            header.force();
+            teams.force();
+            members.force();
+            channel.truncate(memberOffset(teamCount, memberCount));
+
+            return result("dump", teamCount, memberCount, start);
+        }
+    }
+
+    public SnapshotResult load(Path source) throws IOException, SQLException {
+        if (ready) {
+            throw new IllegalStateException("member snapshot can only be loaded during startup, before the in-memory search structures are built");
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             Connection connection = rawDataSource().getConnection()) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            checkHeader(header);
+            long teamCount = header.getLong(16);
+            long memberCount = header.getLong(24);
+
+            connection.setAutoCommit(false);
+            byte[] scratch = new byte[STRING_BYTES];
+            long maxId = 0;
+
+            RecordWindow teams = new RecordWindow(channel, HEADER_SIZE, TEAM_RECORD_SIZE, teamCount);
+            try (PreparedStatement insert = connection.prepareStatement("insert into team (id, name) values (?, ?)")) {
+                for (long i = 0; i < teamCount; i++) {
+                    MappedByteBuffer buffer = teams.at(i);
+                    int base = teams.position(i);
+                    long id = buffer.getLong(base + TEAM_ID);
+                    insert.setLong(1, id);
+                    insert.setString(2, getString(buffer, base + TEAM_NAME, scratch));
+                    insert.addBatch();
+                    maxId = Math.max(maxId, id);
+                    flushBatch(connection, insert, i + 1);
+                }
+                insert.executeBatch();
+            }
+
+            RecordWindow members = new RecordWindow(channel, memberOffset(teamCount, 0), MEMBER_RECORD_SIZE, memberCount);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)")) {
+                for (long i = 0; i < memberCount; i++) {
+                    MappedByteBuffer buffer = members.at(i);
+                    int base = members.position(i);
+                    long id = buffer.getLong(base + MEMBER_ID);
+                    long teamId = buffer.getLong(base + MEMBER_TEAM_ID);
+                    insert.setLong(1, id);
+                    insert.setString(2, getString(buffer, base + MEMBER_USERNAME, scratch));
+                    insert.setInt(3, buffer.getInt(base + MEMBER_AGE));
+                    if (teamId == NO_TEAM) {
+                        insert.setNull(4, Types.BIGINT);
+                    } else {
+                        insert.setLong(4, teamId);
+                    }
+                    insert.addBatch();
+                    maxId = Math.max(maxId, id);
+                    flushBatch(connection, insert, i + 1);
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+
+            restartSequence(connection, maxId + 1);
+            return result("load", teamCount, memberCount, start);
+        }
+    }
+
+    private void flushBatch(Connection connection, PreparedStatement insert, long count) throws SQLException {
+        if (count % BATCH_SIZE == 0) {
+            insert.executeBatch();
+        }
+        if (count % COMMIT_INTERVAL == 0) {
+            connection.commit();
+        }
+    }
+
+    // 스냅샷의 id 를 그대로 넣었으므로 이후 persist 가 같은 id 를 받지 않도록 시퀀스를 옮김
+    // alter sequence ... restart with 는 H2 문법이므로 다른 DB 는 옮기지 않고 경고만 남김
+    private void restartSequence(Connection connection, long next) throws SQLException {
+        if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+            log.warn("H2 가 아니므로 hibernate_sequence 를 옮기지 않았습니다. {} 이상으로 직접 조정이 필요합니다.", next);
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter sequence hibernate_sequence restart with " + next);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            log.warn("hibernate_sequence 를 {} 로 옮기지 못했습니다. 직접 조정이 필요합니다.", next, e);
+        }
+    }
+
+    private DataSource rawDataSource() throws SQLException {
+        return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : dataSource;
+    }
+
+    private SnapshotResult result(String operation, long teams, long members, long start) {
+        SnapshotResult result = new SnapshotResult(teams, members, (System.nanoTime() - start) / 1_000_000);
+        log.info("member snapshot {} : teams={}, members={}, elapsed={}ms, throughput={} rows/min",
+                operation, teams, members, result.getElapsedMillis(), result.getRowsPerMinute());
+        return result;
+    }
+
+    /**
+     * 파일을 RECORDS_PER_WINDOW 레코드 단위로 나눠서 매핑
+     */
+    private static class RecordWindow {
+        private final FileChannel channel;
+        private final long base;
+        private final int recordSize;
+        private final long recordCount; // 읽기 전용이면 전체 레코드 수, 쓰기면 -1
+        private long windowIndex = -1;
+        private MappedByteBuffer window;
+
+        RecordWindow(FileChannel channel, long base, int recordSize) {
+            this(channel, base, recordSize, -1);
+        }
+
+        RecordWindow(FileChannel channel, long base, int recordSize, long recordCount) {
+            this.channel = channel;
+            this.base = base;
+            this.recordSize = recordSize;
+            this.recordCount = recordCount;
+        }
+
+        MappedByteBuffer at(long index) throws IOException {
+            long target = index / RECORDS_PER_WINDOW;
+            if (target != windowIndex) {
+                if (window != null && recordCount < 0) {
+                    window.force();
+                }
+                long first = target * RECORDS_PER_WINDOW;
+                long records = recordCount < 0 ? RECORDS_PER_WINDOW : Math.min(RECORDS_PER_WINDOW, recordCount - first);
+                window = channel.map(recordCount < 0 ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        base + first * recordSize, records * recordSize);
+                windowIndex = target;
+            }
+            return window;
+        }
+
+        int position(long index) {
+            return (int) (index % RECORDS_PER_WINDOW) * recordSize;
+        }
+
+        void force() {
+            if (window != null) {
+                window.force();
+            }
+        }
+    }
+
+    @Value
+    public static class SnapshotResult {
+        long teams;
+        long members;
+        long elapsedMillis;
+
+        public long getRowsPerMinute() {
+            return elapsedMillis == 0 ? teams + members : (teams + members) * 60_000 / elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.stats.TeamStatsReconciliation;
+
+import java.util.List;
+
+/**
+ * team_stats 주기적 재계산 (member.team-stats.reconcile-cron, 기본값 "-" 은 비활성)
+ * 기동 완료 시에도 한 번 실행해서 기존 데이터로 채움
+ *
+ * 팀마다 별도 트랜잭션에서 집계 행을 잠그고 보정한다. (TeamStatsReconciliation.reconcile)
+ * 한 트랜잭션에서 여러 팀을 잠그면 팀을 옮기는 회원 변경(이전 팀, 새 팀 순서로 잠금)과 교착 상태가 될 수 있음
+ */
+@Slf4j
+@Component
+public class TeamStatsReconcileJob {
+
+    private final TeamStatsReconciliation reconciliation;
+    private final TransactionTemplate transaction;
+
+    public TeamStatsReconcileJob(TeamStatsReconciliation reconciliation, PlatformTransactionManager transactionManager) {
+        this.reconciliation = reconciliation;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${member.team-stats.reconcile-cron:-}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        List<Long> teamIds = transaction.execute(status -> reconciliation.teamIds());
+        int drifted = 0;
+        for (Long teamId : teamIds) {
+            if (Boolean.TRUE.equals(transaction.execute(status -> reconciliation.reconcile(teamId)))) {
+                drifted++;
+            }
+        }
+        Integer orphans = transaction.execute(status -> reconciliation.deleteOrphans());
+        log.info("team_stats reconciled: teams={}, drifted teams={}, orphans={}, elapsed={}ms",
+                teamIds.size(), drifted, orphans, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.monitoring.StatementBudgetInterceptor;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    // 스프링 부트가 설정한 builder (JsonComponent 등록 포함), prototype 이라 꺼낼 때마다 새로 만들어짐
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+    private final StatementBudgetInterceptor statementBudgetInterceptor;
+
+    // @StatementBudget 이 붙은 컨트롤러만 SQL 수를 셈
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementBudgetInterceptor);
+    }
+
+    /**
+     * 서비스 간 호출용 바이너리 응답
+     * * Accept: application/x-jackson-smile -> Smile
+     * * Accept: application/cbor -> CBOR
+     * JSON 과 같은 serializer(PageSerializer 등)를 사용하고 출력 스트림에 바로 쓴다.
+     *
+     * 스프링이 jackson-dataformat-smile/cbor 를 보고 기본 Smile/CBOR 컨버터를 이미 등록하는데,
+     * 그 컨버터는 JsonComponent 가 없는 ObjectMapper 를 쓰므로 같은 자리에서 교체한다. (뒤에 추가하면 기본 컨버터가 먼저 선택됨)
+     * JSON 컨버터보다 뒤에 있으므로 Accept 가 없거나 *&#47;* 이면 기존처럼 JSON 으로 응답
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replace(converters, MappingJackson2SmileHttpMessageConverter.class,
+                new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.getObject().smile().build()));
+        replace(converters, MappingJackson2CborHttpMessageConverter.class,
+                new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.getObject().cbor().build()));
+    }
+
+    private static void replace(List<HttpMessageConverter<?>> converters, Class<?> type, HttpMessageConverter<?> converter) {
+        boolean replaced = false;
+        for (int i = 0; i < converters.size(); i++) {
+            if (type.isInstance(converters.get(i))) {
+                converters.set(i, converter);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            converters.add(converter);
+        }
+    }
+}
@@ -3,34 +3,136 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberBatchSearchResult;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberFieldRows;
+import study.querydsl.dto.MemberLookupResult;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.monitoring.StatementBudget;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.search.MemberBatchSearchService;
+import study.querydsl.search.MemberSearchCache;
+import study.querydsl.search.MemberTableVersions;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@StatementBudget // 요청당 SQL 수 제한 (member.statement-budget.default-max)
 public class MemberController {
 
+    private static final int MAX_LOOKUP_IDS = 10_000;
+    private static final int MAX_BATCH_CONDITIONS = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberTableVersions memberTableVersions;
+    private final MemberBatchSearchService memberBatchSearchService;
 
+    // 변경이 없으면 ETag 가 같으므로 검색하지 않고 304 응답 (checkNotModified 가 ETag 헤더도 세팅함)
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest, memberTableVersions.etag(variant("v1", webRequest), condition))) {
+            return null;
+        }
+        return memberSearchCache.getList(condition, () -> memberJpaRepository.search(condition));
+    }
+
+    // ?fields=memberId,username 처럼 필요한 컬럼만 조회 (team 컬럼/조건이 없으면 team 조인 생략)
+    @GetMapping(value = "/v1/members", params = "fields")
+    public MemberFieldRows searchMemberFieldsV1(MemberSearchCondition condition, @RequestParam String fields) {
+        List<MemberField> selected;
+        try {
+            selected = MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return memberRepository.searchFields(condition, selected);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest, memberTableVersions.etag(variant("v2", webRequest), condition, pageable))) {
+            return null;
+        }
+        return memberSearchCache.getPage(condition, pageable, () -> memberRepository.searchPageSimple(condition, pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest, memberTableVersions.etag(variant("v3", webRequest), condition, pageable))) {
+            return null;
+        }
+        return memberSearchCache.getPage(condition, pageable, () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @GetMapping("/v4/members")
+    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageParallel(condition, pageable);
+    }
+
+    // 대량 조회/추출용 컬럼 형식 응답
+    @GetMapping("/v1/members/columnar")
+    public MemberTeamColumns searchMemberColumnar(MemberSearchCondition condition) {
+        return memberRepository.searchColumnar(condition);
+    }
+
+    // 여러 id 한 번에 조회, 요청 순서대로 반환하고 없는 id 는 found = false
+    @PostMapping("/v1/members/lookup")
+    public List<MemberLookupResult> lookupMembers(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not exceed " + MAX_LOOKUP_IDS);
+        }
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain null");
+        }
+
+        List<Member> members = memberJpaRepository.findAllByIdInOrder(ids);
+        List<MemberLookupResult> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Member member = members.get(i);
+            result.add(new MemberLookupResult(ids.get(i), member == null ? null : new MemberTeamDto(
+                    member.getId(), member.getUsername(), member.getAge(),
+                    member.getTeam() != null ? member.getTeam().getId() : null,
+                    member.getTeam() != null ? member.getTeam().getName() : null)));
+        }
+        return result;
+    }
+
+    // 여러 검색 조건을 한 번에, 요청한 조건 순서대로 결과와 건수를 반환
+    @PostMapping("/v1/members/batch-search")
+    public List<MemberBatchSearchResult> batchSearchMembers(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.size() > MAX_BATCH_CONDITIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "conditions must not exceed " + MAX_BATCH_CONDITIONS);
+        }
+        return memberBatchSearchService.search(conditions);
+    }
+
+    // JSON/Smile/CBOR 가 같은 URL 이므로 Accept 마다 다른 ETag, 중간 캐시에는 Vary: Accept
+    private static boolean checkNotModified(ServletWebRequest webRequest, String etag) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return webRequest.checkNotModified(etag);
+    }
+
+    private static String variant(String endpoint, ServletWebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        return accept == null ? endpoint : endpoint + ";" + accept;
     }
 }
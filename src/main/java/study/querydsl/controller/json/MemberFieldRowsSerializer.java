@@ -0,0 +1,44 @@
+package study.querydsl.controller.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberFieldRows;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * MemberFieldRows 를 선택한 필드만 가진 객체 배열로 출력
+ * ?fields=memberId,username → [{"memberId": 1, "username": "member1"}, ...]
+ */
+@JsonComponent
+public class MemberFieldRowsSerializer extends JsonSerializer<MemberFieldRows> {
+
+    @Override
+    public void serialize(MemberFieldRows result, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        List<MemberField> fields = result.getFields();
+
+        gen.writeStartArray();
+        for (Object[] row : result.getRows()) {
+            gen.writeStartObject();
+            for (int i = 0; i < fields.size(); i++) {
+                Object value = row[i];
+                gen.writeFieldName(fields.get(i).getName());
+                if (value == null) {
+                    gen.writeNull();
+                } else if (value instanceof String) {
+                    gen.writeString((String) value);
+                } else if (value instanceof Long) {
+                    gen.writeNumber((Long) value);
+                } else {
+                    gen.writeNumber((Integer) value);
+                }
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+}
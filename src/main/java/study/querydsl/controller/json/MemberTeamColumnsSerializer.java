@@ -0,0 +1,55 @@
+package study.querydsl.controller.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import study.querydsl.dto.MemberTeamColumns;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamColumns 를 컬럼 단위 JSON 으로 출력
+ * {
+ *   "size": 3,
+ *   "memberId": [1, 2, 3],
+ *   "age": [10, 20, 30],
+ *   "username": ["member1", "member2", "member3"],
+ *   "teams": [{"teamId": 1, "teamName": "teamA"}],    // team 사전
+ *   "team": [0, 0, -1]                                // 사전 인덱스, 팀이 없으면 -1
+ * }
+ */
+@JsonComponent
+public class MemberTeamColumnsSerializer extends JsonSerializer<MemberTeamColumns> {
+
+    @Override
+    public void serialize(MemberTeamColumns columns, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        int size = columns.size();
+
+        gen.writeStartObject();
+        gen.writeNumberField("size", size);
+
+        gen.writeFieldName("memberId");
+        gen.writeArray(columns.memberIdColumn(), 0, size);
+
+        gen.writeFieldName("age");
+        gen.writeArray(columns.ageColumn(), 0, size);
+
+        gen.writeFieldName("username");
+        gen.writeArray(columns.usernameColumn(), 0, size);
+
+        gen.writeArrayFieldStart("teams");
+        for (int index = 0; index < columns.teamDictionarySize(); index++) {
+            gen.writeStartObject();
+            gen.writeNumberField("teamId", columns.teamDictionaryId(index));
+            gen.writeStringField("teamName", columns.teamDictionaryName(index));
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+
+        gen.writeFieldName("team");
+        gen.writeArray(columns.teamIndexColumn(), 0, size);
+
+        gen.writeEndObject();
+    }
+}
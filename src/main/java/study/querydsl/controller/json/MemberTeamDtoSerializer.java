@@ -0,0 +1,40 @@
+package study.querydsl.controller.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamDto 를 BeanSerializer(리플렉션, 프로퍼티 탐색) 없이 필드 순서대로 바로 출력
+ * 출력 형식은 기본 직렬화와 같다.
+ */
+@JsonComponent
+public class MemberTeamDtoSerializer extends JsonSerializer<MemberTeamDto> {
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        write(dto, gen);
+    }
+
+    static void write(MemberTeamDto dto, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeNullableNumber(gen, "memberId", dto.getMemberId());
+        gen.writeStringField("username", dto.getUsername());
+        gen.writeNumberField("age", dto.getAge());
+        writeNullableNumber(gen, "teamId", dto.getTeamId());
+        gen.writeStringField("teamName", dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private static void writeNullableNumber(JsonGenerator gen, String name, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, value);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.controller.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+
+/**
+ * Page 응답을 리플렉션 없이 직접 출력
+ * PageImpl 기본 직렬화와 같은 필드(/v2, /v3, /v4 응답 형태)를 같은 순서로 스트리밍으로 쓴다.
+ * {
+ *   "content": [...],
+ *   "pageable": {...},
+ *   "last": false,
+ *   "totalPages": 5,
+ *   "totalElements": 100,
+ *   "size": 20,
+ *   "number": 0,
+ *   "sort": {...},
+ *   "first": true,
+ *   "numberOfElements": 20,
+ *   "empty": false
+ * }
+ * MemberTeamDto 는 MemberTeamDtoSerializer 로 바로 쓰고, 다른 타입과 pageable, sort 는 기본 serializer 에 맡긴다.
+ */
+@JsonComponent
+public class PageSerializer extends JsonSerializer<Page<?>> {
+
+    @Override
+    public void serialize(Page<?> page, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+
+        gen.writeArrayFieldStart("content");
+        for (Object element : page.getContent()) {
+            if (element instanceof MemberTeamDto) {
+                MemberTeamDtoSerializer.write((MemberTeamDto) element, gen);
+            } else {
+                serializers.defaultSerializeValue(element, gen);
+            }
+        }
+        gen.writeEndArray();
+
+        serializers.defaultSerializeField("pageable", page.getPageable(), gen);
+        gen.writeBooleanField("last", page.isLast());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("number", page.getNumber());
+        serializers.defaultSerializeField("sort", page.getSort(), gen);
+        gen.writeBooleanField("first", page.isFirst());
+        gen.writeNumberField("numberOfElements", page.getNumberOfElements());
+        gen.writeBooleanField("empty", page.isEmpty());
+
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 배치 검색 결과, 요청한 조건 순서대로 하나씩
+ */
+@Data
+public class MemberBatchSearchResult {
+
+    private int index;
+    private long count;
+    private List<MemberTeamDto> content;
+
+    public MemberBatchSearchResult(int index, List<MemberTeamDto> content) {
+        this.index = index;
+        this.count = content.size();
+        this.content = content;
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * 검색 결과에서 선택할 수 있는 컬럼 (?fields=memberId,username)
+ * 이름은 MemberTeamDto 의 프로퍼티 이름과 같다.
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", false),
+    USERNAME("username", false),
+    AGE("age", false),
+    TEAM_ID("teamId", false),       // member.team_id FK 컬럼이라 team 조인 불필요
+    TEAM_NAME("teamName", true);
+
+    private final String name;
+    private final boolean teamColumn;
+
+    MemberField(String name, boolean teamColumn) {
+        this.name = name;
+        this.teamColumn = teamColumn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isTeamColumn() {
+        return teamColumn;
+    }
+
+    /**
+     * "memberId,username" 형식을 선언 순서와 상관없이 요청 순서대로, 중복 없이 변환
+     * 알 수 없는 이름이면 IllegalArgumentException
+     */
+    public static List<MemberField> parse(String fields) {
+        EnumSet<MemberField> seen = EnumSet.noneOf(MemberField.class);
+        List<MemberField> result = new ArrayList<>();
+        for (String token : fields.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            MemberField field = byName(name);
+            if (seen.add(field)) {
+                result.add(field);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("fields must not be empty");
+        }
+        return result;
+    }
+
+    private static MemberField byName(String name) {
+        for (MemberField field : values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("unknown field: " + name);
+    }
+}
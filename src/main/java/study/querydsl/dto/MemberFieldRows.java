@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 선택한 컬럼만 담은 검색 결과, row 는 fields 순서와 같은 순서의 값 배열
+ */
+@Getter
+public class MemberFieldRows {
+
+    private final List<MemberField> fields;
+    private final List<Object[]> rows;
+
+    public MemberFieldRows(List<MemberField> fields, List<Object[]> rows) {
+        this.fields = fields;
+        this.rows = rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * id 목록 조회 결과, 요청한 id 순서대로 반환하고 없는 id 는 found = false
+ */
+@Data
+public class MemberLookupResult {
+
+    private Long id;
+    private boolean found;
+    private MemberTeamDto member;
+
+    public MemberLookupResult(Long id, MemberTeamDto member) {
+        this.id = id;
+        this.found = member != null;
+        this.member = member;
+    }
+}
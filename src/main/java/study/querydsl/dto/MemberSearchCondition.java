@@ -2,6 +2,8 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class MemberSearchCondition {
 
@@ -9,4 +11,13 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // username 접두사/부분 문자열 (UsernameNgramIndex 로 처리, 처리할 수 없으면 DB like)
+    private String usernameStartsWith;
+    private String usernameContains;
+
+    // 여러 값 중 하나와 일치 (IN), ?usernames=a,b 또는 ?usernames=a&usernames=b
+    private List<String> usernames;
+    private List<String> teamNames;
+    private List<Long> teamIds;
 }
@@ -0,0 +1,163 @@
+package study.querydsl.dto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 대량 회원 검색 결과를 컬럼 단위로 담는 컨테이너 (List<MemberTeamDto> 대체)
+ * * memberId, age : primitive 배열
+ * * username : String 배열 (username 은 거의 유일하므로 사전을 만들면 오히려 Map 엔트리와 boxing 된 코드만큼 더 씀)
+ * * team : (teamId, teamName) 사전 + 인덱스 배열, 팀이 없으면 -1 (팀 수는 row 수보다 훨씬 적음)
+ *
+ * row 마다 DTO, boxing 된 Long, 중복된 teamName 문자열이 생기지 않으므로 힙 사용량과 GC 부담이 줄어든다.
+ * 단일 스레드에서 채운 뒤 읽기 전용으로 사용
+ */
+public class MemberTeamColumns {
+
+    private static final int NO_TEAM = -1;
+
+    private int size;
+    private long[] memberIds;
+    private int[] ages;
+    private String[] usernames;
+    private int[] teamIndexes;
+
+    private final Dictionary<Long> teamIds = new Dictionary<>();
+    private String[] teamNames = new String[8]; // teamIds 사전과 같은 인덱스
+
+    public MemberTeamColumns() {
+        this(1024);
+    }
+
+    public MemberTeamColumns(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.memberIds = new long[capacity];
+        this.ages = new int[capacity];
+        this.usernames = new String[capacity];
+        this.teamIndexes = new int[capacity];
+    }
+
+    public void add(long memberId, String username, int age, Long teamId, String teamName) {
+        if (size == memberIds.length) {
+            grow();
+        }
+        memberIds[size] = memberId;
+        ages[size] = age;
+        usernames[size] = username;
+        teamIndexes[size] = teamId == null ? NO_TEAM : encodeTeam(teamId, teamName);
+        size++;
+    }
+
+    private int encodeTeam(Long teamId, String teamName) {
+        int index = teamIds.encode(teamId);
+        if (index == teamNames.length) {
+            teamNames = Arrays.copyOf(teamNames, teamNames.length * 2);
+        }
+        teamNames[index] = teamName;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = memberIds.length + (memberIds.length >> 1);
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        teamIndexes = Arrays.copyOf(teamIndexes, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getMemberId(int row) {
+        return memberIds[checkRow(row)];
+    }
+
+    public String getUsername(int row) {
+        return usernames[checkRow(row)];
+    }
+
+    public int getAge(int row) {
+        return ages[checkRow(row)];
+    }
+
+    public Long getTeamId(int row) {
+        int index = teamIndexes[checkRow(row)];
+        return index == NO_TEAM ? null : teamIds.decode(index);
+    }
+
+    public String getTeamName(int row) {
+        int index = teamIndexes[checkRow(row)];
+        return index == NO_TEAM ? null : teamNames[index];
+    }
+
+    public MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(getMemberId(row), getUsername(row), getAge(row), getTeamId(row), getTeamName(row));
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return row;
+    }
+
+    // JSON writer 등에서 배열을 그대로 쓰기 위한 접근자 (앞에서 size 개만 유효)
+
+    public long[] memberIdColumn() {
+        return memberIds;
+    }
+
+    public int[] ageColumn() {
+        return ages;
+    }
+
+    public String[] usernameColumn() {
+        return usernames;
+    }
+
+    public int[] teamIndexColumn() {
+        return teamIndexes;
+    }
+
+    public int teamDictionarySize() {
+        return teamIds.size();
+    }
+
+    public long teamDictionaryId(int index) {
+        return teamIds.decode(index);
+    }
+
+    public String teamDictionaryName(int index) {
+        return teamNames[index];
+    }
+
+    private static class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private Object[] values = new Object[16];
+
+        int encode(T value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[next] = value;
+            codes.put(value, next);
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        T decode(int code) {
+            return (T) values[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+    }
+}
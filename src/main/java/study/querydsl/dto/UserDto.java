@@ -1,8 +1,10 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor // Projections.fields / bean 은 기본 생성자로 객체를 만든 뒤 값을 세팅
 public class UserDto {
 
     private String name;
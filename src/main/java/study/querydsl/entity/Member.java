@@ -5,6 +5,12 @@ import lombok.*;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // MemberRepositoryImpl 검색 조건 : username 일치/IN/접두사, team 조건 + 나이 범위, 나이 범위
+        @Index(name = "ix_member_username", columnList = "username"),
+        @Index(name = "ix_member_team_id_age", columnList = "team_id, age"),
+        @Index(name = "ix_member_age", columnList = "age")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) // 연관관계는 추가하면 좋지 않다 (서로 부르면 무한루프 됨)
@@ -0,0 +1,45 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 회원 검색용 읽기 모델 (member left join team 결과를 미리 저장, MemberTeamDto 와 같은 컬럼)
+ * * 쓰기는 MemberSearchViewMaintainer (Member/Team 변경과 같은 트랜잭션) 와 MemberSearchViewRebuilder (전체 재생성) 만 함
+ * * JPA 로는 읽기만 하므로 @Immutable
+ * * @Synchronize : 이 엔티티를 조회하면 member/team 의 대기 중인 변경을 먼저 flush (그래야 같은 트랜잭션의 변경이 보임)
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Table(name = "member_search_view", indexes = {
+        @Index(name = "ix_member_search_view_username", columnList = "username"),
+        @Index(name = "ix_member_search_view_team_name_age", columnList = "team_name, age"),
+        @Index(name = "ix_member_search_view_team_id", columnList = "team_id"),
+        @Index(name = "ix_member_search_view_age", columnList = "age")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberSearchView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+}
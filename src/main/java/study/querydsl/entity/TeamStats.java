@@ -0,0 +1,40 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 팀별 회원 나이 집계 (member group by team 결과를 미리 저장)
+ * * 쓰기는 TeamStatsMaintainer (변경분만 반영) 와 TeamStatsReconciliation (재계산) 만 함
+ * * 평균은 ageSum / memberCount 로 계산, 회원이 없으면 minAge/maxAge 는 null
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "member_count")
+    private long memberCount;
+    @Column(name = "age_sum")
+    private long ageSum;
+    @Column(name = "min_age")
+    private Integer minAge;
+    @Column(name = "max_age")
+    private Integer maxAge;
+}
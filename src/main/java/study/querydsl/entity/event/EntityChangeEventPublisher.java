@@ -0,0 +1,112 @@
+package study.querydsl.entity.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate post insert/update/delete 이벤트를 스프링 이벤트(MemberChangedEvent, TeamChangedEvent)로 변환
+ * JPA 콜백(@PostUpdate 등)과 달리 변경 전 상태(oldState)를 함께 받을 수 있어서 Hibernate 리스너를 사용
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEventPublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher publisher;
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent(EntityChangeType.INSERT,
+                    null, memberState(event.getPersister(), event.getId(), event.getState())));
+        } else if (entity instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent(EntityChangeType.INSERT,
+                    (Long) event.getId(), null, teamName(event.getPersister(), event.getState())));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        Object[] oldState = event.getOldState();
+        if (entity instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent(EntityChangeType.UPDATE,
+                    oldState != null ? memberState(event.getPersister(), event.getId(), oldState) : null,
+                    memberState(event.getPersister(), event.getId(), event.getState())));
+        } else if (entity instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent(EntityChangeType.UPDATE, (Long) event.getId(),
+                    oldState != null ? teamName(event.getPersister(), oldState) : null,
+                    teamName(event.getPersister(), event.getState())));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent(EntityChangeType.DELETE,
+                    memberState(event.getPersister(), event.getId(), event.getDeletedState()), null));
+        } else if (entity instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent(EntityChangeType.DELETE,
+                    (Long) event.getId(), teamName(event.getPersister(), event.getDeletedState()), null));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private MemberState memberState(EntityPersister persister, Object id, Object[] state) {
+        String username = (String) state[propertyIndex(persister, "username")];
+        int age = (Integer) state[propertyIndex(persister, "age")];
+        Object team = state[propertyIndex(persister, "team")];
+        if (team == null) {
+            return new MemberState((Long) id, username, age, null, null);
+        }
+
+        // 프록시를 초기화하면 flush 중에 쿼리가 나가므로 식별자만 꺼냄
+        if (team instanceof HibernateProxy) {
+            Long teamId = (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+            String teamName = Hibernate.isInitialized(team) ? ((Team) team).getName() : null;
+            return new MemberState((Long) id, username, age, teamId, teamName);
+        }
+        return new MemberState((Long) id, username, age, ((Team) team).getId(), ((Team) team).getName());
+    }
+
+    private String teamName(EntityPersister persister, Object[] state) {
+        return (String) state[propertyIndex(persister, "name")];
+    }
+
+    private int propertyIndex(EntityPersister persister, String propertyName) {
+        return persister.getEntityMetamodel().getPropertyIndex(propertyName);
+    }
+}
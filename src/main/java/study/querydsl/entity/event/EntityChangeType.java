@@ -0,0 +1,5 @@
+package study.querydsl.entity.event;
+
+public enum EntityChangeType {
+    INSERT, UPDATE, DELETE
+}
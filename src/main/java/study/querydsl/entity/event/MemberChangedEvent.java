@@ -0,0 +1,24 @@
+package study.querydsl.entity.event;
+
+import lombok.Value;
+
+/**
+ * Member insert/update/delete 이벤트 (flush 시점에 발행)
+ * * INSERT : before 는 null
+ * * UPDATE : 분리(detached) 상태에서 병합된 경우 등 이전 값을 모르면 before 는 null
+ * * DELETE : after 는 null
+ *
+ * 커밋 이후에 반영해야 하면 @TransactionalEventListener, 같은 트랜잭션 안에서 반영해야 하면 @EventListener 사용
+ * JPQL 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 이벤트가 발행되지 않는다.
+ */
+@Value
+public class MemberChangedEvent {
+
+    EntityChangeType type;
+    MemberState before;
+    MemberState after;
+
+    public Long getMemberId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
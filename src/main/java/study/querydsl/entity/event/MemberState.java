@@ -0,0 +1,21 @@
+package study.querydsl.entity.event;
+
+import lombok.Value;
+
+/**
+ * 변경 이벤트 시점의 Member 컬럼 값
+ * teamName 은 team 이 초기화되지 않은 프록시면 알 수 없으므로 null (teamId 가 있는데 teamName 이 null 이면 "모름")
+ */
+@Value
+public class MemberState {
+
+    Long id;
+    String username;
+    int age;
+    Long teamId;
+    String teamName;
+
+    public boolean hasTeam() {
+        return teamId != null;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.entity.event;
+
+import lombok.Value;
+
+/**
+ * Team insert/update/delete 이벤트 (flush 시점에 발행)
+ * beforeName 은 INSERT 이거나 이전 값을 모르면 null, afterName 은 DELETE 면 null
+ */
+@Value
+public class TeamChangedEvent {
+
+    EntityChangeType type;
+    Long teamId;
+    String beforeName;
+    String afterName;
+
+    public boolean isRenamed() {
+        return type == EntityChangeType.UPDATE
+                && (beforeName == null ? afterName != null : !beforeName.equals(afterName));
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.monitoring;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 현재 스레드에서 실행 중인 repository 메서드와 검색 조건 모양 (SQL 단위 지연 시간 태그용)
+ * 중첩 호출이면 가장 바깥 호출을 유지, 다른 스레드로 넘길 때는 callAs 로 이어줌
+ */
+public final class RepositoryCall {
+
+    private static final ThreadLocal<RepositoryCall> CURRENT = new ThreadLocal<>();
+
+    // username, teamName, ageGoe, ageLoe, other 설정 여부 비트 → 조건 모양 이름 (호출마다 문자열을 만들지 않도록 미리 만듦)
+    // other : usernames, teamNames, teamIds, usernameStartsWith, usernameContains 중 하나라도 있음
+    //         (값마다 태그를 나누면 조합이 너무 많아지므로 하나로 묶되, 조건 없는 전체 조회 "none" 과는 구분)
+    private static final String[] SHAPES = new String[32];
+    static final String NO_CONDITION = "-";
+
+    static {
+        String[] names = {"username", "teamName", "ageGoe", "ageLoe", "other"};
+        for (int mask = 0; mask < SHAPES.length; mask++) {
+            StringBuilder shape = new StringBuilder();
+            for (int bit = 0; bit < names.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    shape.append(shape.length() == 0 ? "" : "+").append(names[bit]);
+                }
+            }
+            SHAPES[mask] = mask == 0 ? "none" : shape.toString();
+        }
+    }
+
+    private final String method;
+    private final String shape;
+
+    RepositoryCall(String method, String shape) {
+        this.method = method;
+        this.shape = shape;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public static RepositoryCall current() {
+        return CURRENT.get();
+    }
+
+    static void set(RepositoryCall call) {
+        if (call == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(call);
+        }
+    }
+
+    public static <T> T callAs(RepositoryCall call, Callable<T> task) throws Exception {
+        RepositoryCall previous = CURRENT.get();
+        set(call);
+        try {
+            return task.call();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * 인자 중 첫 번째 MemberSearchCondition 의 모양, 없으면 "-"
+     */
+    static String shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                MemberSearchCondition condition = (MemberSearchCondition) arg;
+                int mask = (StringUtils.hasText(condition.getUsername()) ? 1 : 0)
+                        | (StringUtils.hasText(condition.getTeamName()) ? 2 : 0)
+                        | (condition.getAgeGoe() != null ? 4 : 0)
+                        | (condition.getAgeLoe() != null ? 8 : 0)
+                        | (hasOtherCondition(condition) ? 16 : 0);
+                return SHAPES[mask];
+            }
+        }
+        return NO_CONDITION;
+    }
+
+    private static boolean hasOtherCondition(MemberSearchCondition condition) {
+        return !CollectionUtils.isEmpty(condition.getUsernames())
+                || !CollectionUtils.isEmpty(condition.getTeamNames())
+                || !CollectionUtils.isEmpty(condition.getTeamIds())
+                || StringUtils.hasText(condition.getUsernameStartsWith())
+                || StringUtils.hasText(condition.getUsernameContains());
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * repository 메서드 지연 시간 (RepositoryMetricsAspect) 과 SQL 단위 지연 시간 (RepositoryQueryListener)
+ * * member.repository.latency{method, shape} : 메서드 전체
+ * * member.repository.query{method, shape, phase=content|count} : 메서드 안에서 실행된 SQL 각각
+ * * member.repository.rows{method, shape} : 반환한 row 수
+ * 백분위(p50/p95/p99)는 Micrometer 가 HdrHistogram 으로 계산, 미터는 태그 조합마다 한 번만 만들어 캐시
+ */
+@Component
+public class RepositoryMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Timer> queries = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rows = new ConcurrentHashMap<>();
+
+    public RepositoryMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordCall(String method, String shape, long elapsedNanos, int rowCount) {
+        String key = method + '|' + shape;
+        latencies.computeIfAbsent(key, k -> Timer.builder("member.repository.latency")
+                        .tag("method", method)
+                        .tag("shape", shape)
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rowCount >= 0) {
+            rows.computeIfAbsent(key, k -> DistributionSummary.builder("member.repository.rows")
+                            .tag("method", method)
+                            .tag("shape", shape)
+                            .publishPercentiles(PERCENTILES)
+                            .register(meterRegistry))
+                    .record(rowCount);
+        }
+    }
+
+    public void recordQuery(RepositoryCall call, String phase, long elapsedNanos) {
+        queries.computeIfAbsent(call.getMethod() + '|' + call.getShape() + '|' + phase, k -> Timer.builder("member.repository.query")
+                        .tag("method", call.getMethod())
+                        .tag("shape", call.getShape())
+                        .tag("phase", phase)
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
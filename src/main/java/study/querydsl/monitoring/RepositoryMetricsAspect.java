@@ -0,0 +1,86 @@
+package study.querydsl.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberFieldRows;
+import study.querydsl.dto.MemberTeamColumns;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MemberRepositoryImpl(MemberRepositoryCustom 구현), MemberJpaRepository, Querydsl4RepositorySupport 하위 repository 의
+ * public 메서드 지연 시간과 반환 row 수를 메서드/조건 모양별로 기록 (RepositoryMetrics)
+ * 메서드 안에서 실행되는 SQL 에 태그를 붙일 수 있도록 실행 동안 RepositoryCall 을 설정
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final RepositoryMetrics repositoryMetrics;
+    private final boolean enabled;
+    private final Map<Method, String> methodNames = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(RepositoryMetrics repositoryMetrics,
+                                   @Value("${member.repository-metrics.enabled:true}") boolean enabled) {
+        this.repositoryMetrics = repositoryMetrics;
+        this.enabled = enabled;
+    }
+
+    @Around("execution(public * *(..)) && ("
+            + "within(study.querydsl.repository.MemberRepositoryImpl) "
+            + "|| within(study.querydsl.repository.MemberJpaRepository) "
+            + "|| within(study.querydsl.repository.support.Querydsl4RepositorySupport+))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = methodNames.computeIfAbsent(method, m -> m.getDeclaringClass().getSimpleName() + "." + m.getName());
+        String shape = RepositoryCall.shapeOf(joinPoint.getArgs());
+
+        RepositoryCall previous = RepositoryCall.current();
+        if (previous == null) {
+            RepositoryCall.set(new RepositoryCall(name, shape));
+        }
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            repositoryMetrics.recordCall(name, shape, System.nanoTime() - start, rowCount(result));
+            if (previous == null) {
+                RepositoryCall.set(null);
+            }
+        }
+    }
+
+    // 반환 row 수, row 가 아닌 반환 값(void, count 등)이면 -1
+    private static int rowCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberTeamColumns) {
+            return ((MemberTeamColumns) result).size();
+        }
+        if (result instanceof MemberFieldRows) {
+            return ((MemberFieldRows) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * repository 메서드 안에서 실행된 SQL 의 지연 시간을 content/count 로 나눠 기록 (select count 로 시작하면 count)
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryQueryListener extends SimpleJdbcEventListener {
+
+    private final RepositoryMetrics repositoryMetrics;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        RepositoryCall call = RepositoryCall.current();
+        if (call == null) {
+            return;
+        }
+        String phase = SqlFingerprint.isCount(statementInformation.getSql()) ? "count" : "content";
+        repositoryMetrics.recordQuery(call, phase, timeElapsedNanos);
+    }
+}
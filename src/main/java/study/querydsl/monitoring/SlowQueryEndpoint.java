@@ -0,0 +1,23 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/slowqueries : fingerprint 별 느린 SQL 집계와 최근 기록
+ * 인증 없이 노출되는 endpoint 이므로 읽기만 제공하고, 바인딩 값은 member.slow-query.include-values 를 켠 경우에만 포함
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public SlowQueryLog.Report slowQueries() {
+        return slowQueryLog.report();
+    }
+}
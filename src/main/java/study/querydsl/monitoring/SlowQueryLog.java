@@ -0,0 +1,215 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 느린 SQL 기록 (p6spy 리스너, p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동 등록)
+ * * threshold-ms 이상 걸린 SQL 을 실행한 repository 메서드와 함께 기록
+ * * 바인딩 값에는 개인 정보(username 등)가 들어가므로 기본은 ? 가 있는 SQL 만 기록하고 EXPLAIN 결과의 리터럴도 ? 로 바꿈
+ *   (include-values=true 면 값이 들어간 SQL, 로컬 디버깅용)
+ * * SqlFingerprint 로 묶어서 건수와 지연 시간 분포(HdrHistogram) 집계, select 는 fingerprint 마다 처음 한 번 EXPLAIN
+ * * 최근 기록은 ring-size 개, fingerprint 는 max-fingerprints 개까지만 유지 (넘으면 가장 오래 전에 본 것부터 제거)
+ *
+ * EXPLAIN 은 느린 SQL 을 실행한 커넥션(p6spy 로 감싸기 전)에서 바로 실행하므로 같은 트랜잭션의 데이터 기준
+ * /actuator/slowqueries 로 조회 (읽기 전용, 기록은 재시작하거나 오래된 것부터 밀려나야 지워짐)
+ */
+@Slf4j
+@Component
+public class SlowQueryLog extends SimpleJdbcEventListener {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int ringSize;
+    private final int maxFingerprints;
+    private final boolean explain;
+    private final boolean includeValues;
+
+    private final ArrayDeque<Sample> recent = new ArrayDeque<>();
+    private final Map<String, FingerprintStats> fingerprints = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(@Value("${member.slow-query.enabled:true}") boolean enabled,
+                        @Value("${member.slow-query.threshold-ms:300}") long thresholdMillis,
+                        @Value("${member.slow-query.ring-size:100}") int ringSize,
+                        @Value("${member.slow-query.max-fingerprints:200}") int maxFingerprints,
+                        @Value("${member.slow-query.explain:true}") boolean explain,
+                        @Value("${member.slow-query.include-values:false}") boolean includeValues) {
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.ringSize = ringSize;
+        this.maxFingerprints = maxFingerprints;
+        this.explain = explain;
+        this.includeValues = includeValues;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!enabled || timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        try {
+            record(statementInformation, timeElapsedNanos);
+        } catch (RuntimeException ex) {
+            // 기록 실패가 SQL 실행을 깨뜨리면 안 됨
+            log.warn("failed to record slow query", ex);
+        }
+    }
+
+    private void record(StatementInformation statementInformation, long timeElapsedNanos) {
+        String sql = statementInformation.getSql();
+        String sqlWithValues = statementInformation.getSqlWithValues();
+        String shownSql = includeValues ? sqlWithValues : sql;
+        String fingerprint = SqlFingerprint.of(sql);
+        String method = SqlFingerprint.callerMethod();
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(timeElapsedNanos);
+
+        FingerprintStats stats = fingerprints.get(fingerprint);
+        if (stats == null) {
+            evictIfFull();
+            stats = fingerprints.computeIfAbsent(fingerprint, FingerprintStats::new);
+        }
+        stats.count.increment();
+        stats.latencyMicros.recordValue(Math.min(elapsedMicros, HIGHEST_TRACKABLE_MICROS));
+        stats.lastSeenMillis = System.currentTimeMillis();
+        stats.lastMethod = method;
+        stats.lastSql = shownSql;
+        if (explain && stats.plan == null && SqlFingerprint.isSelect(sql)) {
+            String plan = explain(statementInformation, sqlWithValues);
+            stats.plan = includeValues ? plan : SqlFingerprint.maskLiterals(plan);
+        }
+
+        Sample sample = new Sample(Instant.now(), TimeUnit.MICROSECONDS.toMillis(elapsedMicros), method, fingerprint, shownSql);
+        synchronized (recent) {
+            recent.addLast(sample);
+            while (recent.size() > ringSize) {
+                recent.removeFirst();
+            }
+        }
+        log.warn("slow query {}ms at {}: {}", sample.getElapsedMillis(), method, shownSql);
+    }
+
+    private void evictIfFull() {
+        while (!fingerprints.isEmpty() && fingerprints.size() >= maxFingerprints) {
+            fingerprints.values().stream()
+                    .min(Comparator.comparingLong(stats -> stats.lastSeenMillis))
+                    .ifPresent(oldest -> fingerprints.remove(oldest.fingerprint));
+        }
+    }
+
+    private String explain(StatementInformation statementInformation, String sqlWithValues) {
+        Connection connection = statementInformation.getConnectionInformation().getConnection();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("explain " + sqlWithValues)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString().trim();
+        } catch (SQLException e) {
+            return "explain failed: " + e.getMessage();
+        }
+    }
+
+    public Report report() {
+        List<FingerprintView> views = fingerprints.values().stream()
+                .map(FingerprintView::new)
+                .sorted(Comparator.comparingLong(FingerprintView::getCount).reversed())
+                .collect(Collectors.toList());
+        List<Sample> samples;
+        synchronized (recent) {
+            samples = new ArrayList<>(recent);
+        }
+        return new Report(TimeUnit.NANOSECONDS.toMillis(thresholdNanos), views, samples);
+    }
+
+    static class FingerprintStats {
+        final String fingerprint;
+        final LongAdder count = new LongAdder();
+        final ConcurrentHistogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+        volatile long lastSeenMillis;
+        volatile String lastMethod;
+        volatile String lastSql;
+        volatile String plan;
+
+        FingerprintStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    @Getter
+    public static class FingerprintView {
+        private final String fingerprint;
+        private final long count;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+        private final String lastMethod;
+        private final String lastSql;
+        private final String plan;
+
+        FingerprintView(FingerprintStats stats) {
+            this.fingerprint = stats.fingerprint;
+            this.count = stats.count.sum();
+            this.p50Millis = stats.latencyMicros.getValueAtPercentile(50) / 1000.0;
+            this.p95Millis = stats.latencyMicros.getValueAtPercentile(95) / 1000.0;
+            this.p99Millis = stats.latencyMicros.getValueAtPercentile(99) / 1000.0;
+            this.maxMillis = stats.latencyMicros.getMaxValue() / 1000.0;
+            this.lastMethod = stats.lastMethod;
+            this.lastSql = stats.lastSql;
+            this.plan = stats.plan;
+        }
+    }
+
+    @Getter
+    public static class Sample {
+        private final Instant at;
+        private final long elapsedMillis;
+        private final String method;
+        private final String fingerprint;
+        private final String sql;
+
+        Sample(Instant at, long elapsedMillis, String method, String fingerprint, String sql) {
+            this.at = at;
+            this.elapsedMillis = elapsedMillis;
+            this.method = method;
+            this.fingerprint = fingerprint;
+            this.sql = sql;
+        }
+    }
+
+    @Getter
+    public static class Report {
+        private final long thresholdMillis;
+        private final List<FingerprintView> fingerprints;
+        private final List<Sample> recent;
+
+        Report(long thresholdMillis, List<FingerprintView> fingerprints, List<Sample> recent) {
+            this.thresholdMillis = thresholdMillis;
+            this.fingerprints = fingerprints;
+            this.recent = recent;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * 값만 다른 SQL 을 같은 것으로 묶기 위한 정규화
+ * * 주석(use_sql_comments 의 JPQL 주석 포함) 제거, 공백 정리
+ * * 문자열/숫자 리터럴 → ?
+ * * IN (?, ?, ...) → IN (?...) : IN 절 개수가 달라도 같은 SQL
+ */
+public abstract class SqlFingerprint {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String result = COMMENT.matcher(sql).replaceAll(" ");
+        result = STRING_LITERAL.matcher(result).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = WHITESPACE.matcher(result).replaceAll(" ").trim().toLowerCase();
+        return IN_LIST.matcher(result).replaceAll("(?...)");
+    }
+
+    /**
+     * 문자열/숫자 리터럴만 ? 로 바꿈 (주석, 대소문자, 공백은 그대로), 바인딩 값이 들어간 EXPLAIN 결과를 외부에 보여줄 때 사용
+     */
+    public static String maskLiterals(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        return NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?");
+    }
+
+    /**
+     * 주석을 뺀 SQL 이 select 로 시작하는지 (EXPLAIN 대상)
+     */
+    public static boolean isSelect(String sql) {
+        int start = statementStart(sql);
+        return start >= 0 && sql.regionMatches(true, start, "select", 0, 6);
+    }
+
+    /**
+     * select count( 로 시작하는지 (페이징 count 쿼리), SQL 마다 호출되므로 정규식 없이 앞부분만 봄
+     */
+    public static boolean isCount(String sql) {
+        int start = statementStart(sql);
+        if (start < 0 || !sql.regionMatches(true, start, "select", 0, 6)) {
+            return false;
+        }
+        int count = skipWhitespace(sql, start + 6);
+        int open = skipWhitespace(sql, count + 5);
+        return sql.regionMatches(true, count, "count", 0, 5) && open < sql.length() && sql.charAt(open) == '(';
+    }
+
+    // 앞쪽 공백과 /* */ 주석을 건너뛴 위치, 없으면 -1
+    private static int statementStart(String sql) {
+        if (sql == null) {
+            return -1;
+        }
+        int i = skipWhitespace(sql, 0);
+        while (sql.startsWith("/*", i)) {
+            int end = sql.indexOf("*/", i + 2);
+            if (end < 0) {
+                return -1;
+            }
+            i = skipWhitespace(sql, end + 2);
+        }
+        return i < sql.length() ? i : -1;
+    }
+
+    private static int skipWhitespace(String sql, int from) {
+        int i = from;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * SQL 을 실행한 애플리케이션 메서드 (repository 패키지 우선, 없으면 처음 만나는 애플리케이션 클래스)
+     */
+    public static String callerMethod() {
+        return StackWalker.getInstance().walk(frames -> {
+            String application = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (!className.startsWith("study.querydsl.") || className.startsWith("study.querydsl.monitoring.")
+                        || className.contains("$$")) {
+                    continue;
+                }
+                String method = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                if (className.startsWith("study.querydsl.repository.")
+                        && !className.startsWith("study.querydsl.repository.support.")) {
+                    return method;
+                }
+                if (application == null) {
+                    application = method;
+                }
+            }
+            return application != null ? application : "unknown";
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 요청 하나에서 실행해도 되는 SQL 수 (컨트롤러 클래스 또는 메서드, 메서드가 우선)
+ * member.statement-budget.endpoints.{컨트롤러}.{메서드} 설정이 있으면 설정이 우선
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface StatementBudget {
+
+    /**
+     * 최대 SQL 수, 음수면 member.statement-budget.default-max
+     */
+    int value() default -1;
+}
@@ -0,0 +1,17 @@
+package study.querydsl.monitoring;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 요청의 SQL 수가 예산을 넘어서 더 실행하지 않음 (member.statement-budget.mode=reject)
+ * 서버 장애가 아니라 요청(조건, 페이지 크기 등)이 허용한 범위를 넘은 것이므로 422 로 응답
+ * (5xx 면 장애 알림에 섞이고 게이트웨이/클라이언트가 같은 요청을 재시도함)
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String name, int budget) {
+        super("statement budget exceeded: " + name + " (max " + budget + ")");
+    }
+}
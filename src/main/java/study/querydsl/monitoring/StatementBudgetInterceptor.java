@@ -0,0 +1,100 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * @StatementBudget 이 붙은 컨트롤러 요청마다 실행한 SQL 수를 세고
+ * * 예산을 넘으면 경고 로그 (mode=reject 면 넘는 SQL 을 실행하지 않고 요청 실패)
+ * * 같은 SQL 이 repeat-threshold 번 이상이면 N+1 경고 (지연 로딩된 Member.team 등)
+ * * member.statement.count{endpoint} 로 요청당 SQL 수 분포, member.statement.budget.exceeded / member.statement.repeated 카운터
+ *
+ * 요청 스레드에서 실행된 SQL 만 셈, 병렬 페이징의 count 쿼리는 어느 스레드에서 실행되든 빠짐 (StatementCounter 참고)
+ */
+@Slf4j
+@Component
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+    private static final String ENDPOINT_PROPERTY = "member.statement-budget.endpoints.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int defaultMax;
+    private final boolean reject;
+    private final int repeatThreshold;
+
+    public StatementBudgetInterceptor(Environment environment, MeterRegistry meterRegistry,
+                                      @Value("${member.statement-budget.enabled:true}") boolean enabled,
+                                      @Value("${member.statement-budget.default-max:20}") int defaultMax,
+                                      @Value("${member.statement-budget.mode:log}") String mode,
+                                      @Value("${member.statement-budget.repeat-threshold:5}") int repeatThreshold) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.defaultMax = defaultMax;
+        this.reject = "reject".equalsIgnoreCase(mode);
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), StatementBudget.class);
+        }
+        if (budget == null) {
+            return true;
+        }
+
+        String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        Integer configured = environment.getProperty(ENDPOINT_PROPERTY + endpoint, Integer.class);
+        int max = configured != null ? configured : budget.value() >= 0 ? budget.value() : defaultMax;
+        StatementCounter.begin(endpoint, max, reject);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        StatementCounter.Scope scope = StatementCounter.current();
+        if (scope == null || scope.getName() == null) {
+            return;
+        }
+        scope.close();
+
+        String endpoint = scope.getName();
+        DistributionSummary.builder("member.statement.count")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(scope.getCount());
+
+        if (scope.isOverBudget() || scope.isRejected()) {
+            Counter.builder("member.statement.budget.exceeded").tag("endpoint", endpoint).register(meterRegistry).increment();
+            log.warn("statement budget exceeded: {} {} ran {} statements (max {})",
+                    request.getMethod(), request.getRequestURI(), scope.getCount(), scope.getBudget());
+        }
+        Map<String, Integer> repeated = scope.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("member.statement.repeated").tag("endpoint", endpoint).register(meterRegistry).increment();
+            repeated.forEach((fingerprint, times) ->
+                    log.warn("possible N+1: {} {} ran the same statement {} times: {}",
+                            request.getMethod(), request.getRequestURI(), times, fingerprint));
+        }
+    }
+}
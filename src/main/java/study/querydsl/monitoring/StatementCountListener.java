@@ -0,0 +1,17 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 실행 직전에 현재 스레드의 StatementCounter 범위에 SQL 을 셈 (범위가 없으면 아무것도 안 함)
+ */
+@Component
+public class StatementCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        StatementCounter.record(statementInformation.getSql());
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 현재 스레드에서 실행된 SQL 문 수 (요청 단위 예산, 테스트의 SQL 수 검증에 사용)
+ * * begin() 으로 범위를 열고 close() 로 닫음, 범위가 겹치면 바깥 범위에도 같이 더함
+ * * 세기는 StatementCountListener (p6spy) 가 실행 직전에 함, batch 는 executeBatch 한 번을 1 로 셈
+ * * 다른 스레드에서 실행되는 SQL 은 세지 않음
+ * * 실행 스레드가 그때그때 달라지는 SQL 은 detached 로 실행해서 어느 스레드에서 실행되든 세지 않음
+ *   (ParallelPageExecutor 의 count 쿼리 : 보통은 executor 스레드, 큐가 가득 차면 호출 스레드)
+ *
+ * budget 을 넘는 SQL 을 막도록 열었으면(reject) 넘는 순간 StatementBudgetExceededException 으로 실행하지 않음
+ */
+public abstract class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static Scope begin() {
+        return begin(null, Integer.MAX_VALUE, false);
+    }
+
+    public static Scope begin(String name, int budget, boolean reject) {
+        Scope scope = new Scope(name, budget, reject, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드의 범위를 잠시 떼어내고 실행 (task 의 SQL 은 세지 않음)
+     */
+    public static <T> T detached(Callable<T> task) throws Exception {
+        Scope scope = CURRENT.get();
+        CURRENT.remove();
+        try {
+            return task.call();
+        } finally {
+            if (scope != null) {
+                CURRENT.set(scope);
+            }
+        }
+    }
+
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        for (Scope s = scope; s != null; s = s.parent) {
+            s.add(fingerprint);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final String name;
+        private final int budget;
+        private final boolean reject;
+        private final Scope parent;
+        private final Map<String, Integer> fingerprints = new HashMap<>();
+        private int count;
+        private boolean rejected;
+
+        private Scope(String name, int budget, boolean reject, Scope parent) {
+            this.name = name;
+            this.budget = budget;
+            this.reject = reject;
+            this.parent = parent;
+        }
+
+        private void add(String fingerprint) {
+            if (reject && count >= budget) {
+                rejected = true;
+                throw new StatementBudgetExceededException(name, budget);
+            }
+            count++;
+            fingerprints.merge(fingerprint, 1, Integer::sum);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isOverBudget() {
+            return count > budget;
+        }
+
+        public boolean isRejected() {
+            return rejected;
+        }
+
+        /**
+         * 같은 SQL(fingerprint)이 threshold 번 이상 실행된 것 (N+1 후보)
+         */
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> result = new HashMap<>();
+            fingerprints.forEach((fingerprint, times) -> {
+                if (times >= threshold) {
+                    result.put(fingerprint, times);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+}
@@ -4,7 +4,11 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -12,23 +16,42 @@ import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.InListSupport;
+import study.querydsl.search.MemberSearchNormalizer;
+import study.querydsl.search.NormalizedSearch;
+import study.querydsl.search.UsernameBloomFilter;
+import study.querydsl.search.UsernameNgramIndex;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MemberPredicates.*;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchNormalizer searchNormalizer;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final UsernameNgramIndex usernameNgramIndex;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory jpaQueryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory jpaQueryFactory,
+                               MemberSearchNormalizer searchNormalizer, UsernameBloomFilter usernameBloomFilter,
+                               UsernameNgramIndex usernameNgramIndex) {
         this.em = em;
         this.queryFactory = jpaQueryFactory;
+        this.searchNormalizer = searchNormalizer;
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.usernameNgramIndex = usernameNgramIndex;
     }
 
     public void save(Member member) {
@@ -40,6 +63,52 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    /**
+     * 여러 id 를 한 번에 조회 (findById 를 반복 호출하는 대신)
+     * * 영속성 컨텍스트에 이미 있고 team 도 초기화된 회원은 쿼리 없이 사용
+     * * 나머지는 team 을 fetch join 해서 IN 절로 묶어서 조회, 개수는 InListSupport 로 나누고 맞춤
+     *   (이미 있는 회원도 team 이 프록시면 같이 조회해서 회원마다 team 을 따로 읽지 않도록)
+     * 결과는 요청한 id 순서와 같고, 없는 id 와 null id 자리는 null
+     */
+    @Transactional(readOnly = true)
+    public List<Member> findAllByIdInOrder(List<Long> ids) {
+        Map<Long, Member> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+            if (managed != null && Hibernate.isInitialized(((Member) managed).getTeam())) {
+                found.put(id, (Member) managed);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        for (List<Long> chunk : InListSupport.partition(missing)) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.id.in(chunk))
+                    .fetch();
+            for (Member findMember : members) {
+                // 이미 있던 회원의 team 프록시는 방금 같이 읽은 team 으로 초기화 (쿼리 없음)
+                Hibernate.initialize(findMember.getTeam());
+                found.put(findMember.getId(), findMember);
+            }
+        }
+
+        List<Member> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(found.get(id));
+        }
+        return result;
+    }
+
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
@@ -51,17 +120,28 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // 확실히 없는 username 은 조회하지 않음 (UsernameBloomFilter)
     public List<Member> findByUsername(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        if (usernameBloomFilter.skipLookup(username)) {
+            return Collections.emptyList();
+        }
+        List<Member> result = em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
                 .getResultList();
+        usernameBloomFilter.recordLookup(!result.isEmpty());
+        return result;
     }
 
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        if (usernameBloomFilter.skipLookup(username)) {
+            return Collections.emptyList();
+        }
+        List<Member> result = queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
                 .fetch();
+        usernameBloomFilter.recordLookup(!result.isEmpty());
+        return result;
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -71,7 +151,7 @@ public class MemberJpaRepository {
             builder.and(member.username.eq(condition.getUsername()));
         }
         if (StringUtils.hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
+            builder.and(teamNameEq(condition.getTeamName()));
         }
         if (condition.getAgeGoe() != null) {
             builder.and(member.age.goe(condition.getAgeGoe()));
@@ -79,6 +159,10 @@ public class MemberJpaRepository {
         if (condition.getAgeLoe() != null) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
+        builder.and(usernameIn(condition.getUsernames()));
+        builder.and(teamNameIn(condition.getTeamNames()));
+        builder.and(teamIdIn(condition.getTeamIds()));
+        builder.and(usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains()));
 
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -95,7 +179,14 @@ public class MemberJpaRepository {
     }
 
     // 조립하기 좋다!!
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    public List<MemberTeamDto> search(MemberSearchCondition rawCondition) {
+        // 정규화, 모순인 조건이면 DB 조회 없이 빈 결과
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 1);
+            return Collections.emptyList();
+        }
+        MemberSearchCondition condition = normalized.getCondition();
 
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -110,26 +201,28 @@ public class MemberJpaRepository {
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
-                        ageGeo(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
                 )
                 .fetch();
 
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGeo(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // username 접두사/부분 문자열, 인덱스로 찾은 id 로 조회하고 인덱스로 처리할 수 없으면 like
+    private BooleanExpression usernameMatches(String prefix, String substring) {
+        if (!StringUtils.hasLength(prefix) && !StringUtils.hasLength(substring)) {
+            return null;
+        }
+        List<Long> ids = usernameNgramIndex.findIds(prefix, substring);
+        if (ids != null) {
+            return ids.isEmpty() ? member.id.in(Collections.<Long>emptyList()) : InListSupport.in(member.id, ids);
+        }
+        BooleanExpression startsWith = StringUtils.hasLength(prefix) ? member.username.startsWith(prefix) : null;
+        BooleanExpression contains = StringUtils.hasLength(substring) ? member.username.contains(substring) : null;
+        return startsWith != null ? startsWith.and(contains) : contains;
     }
 }
@@ -2,13 +2,22 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberFieldRows;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 import java.util.List;
 
 public interface MemberRepositoryCustom {
+    // MemberRepository 의 메서드 이름 쿼리 대신 이 구현이 사용됨 (UsernameBloomFilter 로 없는 username 은 조회 생략)
+    List<Member> findByUsername(String username);
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+    MemberTeamColumns searchColumnar(MemberSearchCondition condition);
+    MemberFieldRows searchFields(MemberSearchCondition condition, List<MemberField> fields);
 }
@@ -1,36 +1,103 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberFieldRows;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberSearchView;
+import study.querydsl.repository.support.InListSupport;
+import study.querydsl.repository.support.ParallelPageExecutor;
+import study.querydsl.search.MemberBitmapIndex;
+import study.querydsl.search.MemberSearchNormalizer;
+import study.querydsl.search.NormalizedSearch;
+import study.querydsl.search.TeamAgeCountMatrix;
+import study.querydsl.search.UsernameBloomFilter;
+import study.querydsl.search.UsernameNgramIndex;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MemberPredicates.*;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final ParallelPageExecutor parallelPageExecutor;
+    private final MemberSearchNormalizer searchNormalizer;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final UsernameNgramIndex usernameNgramIndex;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final TeamAgeCountMatrix teamAgeCountMatrix;
+    // true 면 search/searchPage* 를 member_search_view 읽기 모델에서 조회 (team 조인 없음)
+    private final boolean searchViewEnabled;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, ParallelPageExecutor parallelPageExecutor,
+                                MemberSearchNormalizer searchNormalizer, UsernameBloomFilter usernameBloomFilter,
+                                UsernameNgramIndex usernameNgramIndex, MemberBitmapIndex memberBitmapIndex,
+                                TeamAgeCountMatrix teamAgeCountMatrix,
+                                @Value("${member.search.view.enabled:false}") boolean searchViewEnabled) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.parallelPageExecutor = parallelPageExecutor;
+        this.searchNormalizer = searchNormalizer;
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.usernameNgramIndex = usernameNgramIndex;
+        this.memberBitmapIndex = memberBitmapIndex;
+        this.teamAgeCountMatrix = teamAgeCountMatrix;
+        this.searchViewEnabled = searchViewEnabled;
+    }
+
+    // select m from Member m where m.username = ? (메서드 이름 쿼리와 같음), 확실히 없는 username 은 조회하지 않음
+    @Override
+    public List<Member> findByUsername(String username) {
+        if (usernameBloomFilter.skipLookup(username)) {
+            return Collections.emptyList();
+        }
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .where(username != null ? member.username.eq(username) : member.username.isNull())
+                .fetch();
+        usernameBloomFilter.recordLookup(!result.isEmpty());
+        return result;
     }
 
     // 조립하기 좋다!!
     @Override
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    public List<MemberTeamDto> search(MemberSearchCondition rawCondition) {
+        // 정규화, 모순인 조건이면 DB 조회 없이 빈 결과
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 1);
+            return Collections.emptyList();
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+        if (searchViewEnabled) {
+            return searchView(condition).fetch();
+        }
 
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -45,30 +112,45 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
-                        ageGeo(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
                 )
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    // username 접두사/부분 문자열, 인덱스로 찾은 id 로 조회하고 인덱스로 처리할 수 없으면 like
+    private BooleanExpression usernameMatches(String prefix, String substring) {
+        return usernameMatches(member.id, member.username, prefix, substring);
     }
 
-    private BooleanExpression ageGeo(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private BooleanExpression usernameMatches(NumberPath<Long> id, StringPath username, String prefix, String substring) {
+        if (!StringUtils.hasLength(prefix) && !StringUtils.hasLength(substring)) {
+            return null;
+        }
+        List<Long> ids = usernameNgramIndex.findIds(prefix, substring);
+        if (ids != null) {
+            return ids.isEmpty() ? id.in(Collections.<Long>emptyList()) : InListSupport.in(id, ids);
+        }
+        BooleanExpression startsWith = StringUtils.hasLength(prefix) ? username.startsWith(prefix) : null;
+        BooleanExpression contains = StringUtils.hasLength(substring) ? username.contains(substring) : null;
+        return startsWith != null ? startsWith.and(contains) : contains;
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition rawCondition, Pageable pageable) {
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 2);
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+        if (searchViewEnabled) {
+            return searchViewPage(condition, pageable, false);
+        }
         QueryResults<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -82,8 +164,12 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
-                        ageGeo(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -101,7 +187,36 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      * * 마지막 페이지일 때(offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
      */
     @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition rawCondition, Pageable pageable) {
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 2);
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+
+        // 팀/나이 조건이면 비트맵 인덱스로 필터링과 전체 건수를 구하고, 페이지의 row 만 id 로 조회
+        MemberBitmapIndex.PageIds pageIds = memberBitmapIndex.page(condition, pageable);
+        if (pageIds != null) {
+            List<MemberTeamDto> content = pageIds.getIds().isEmpty() ? Collections.emptyList() : queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(InListSupport.in(member.id, pageIds.getIds()))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            return new PageImpl<>(content, pageable, pageIds.getTotal());
+        }
+        if (searchViewEnabled) {
+            return searchViewPage(condition, pageable, false);
+        }
+
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -115,8 +230,12 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
-                        ageGeo(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -130,14 +249,228 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
-                        ageGeo(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
                 );
 
         // countQuery.fetchCount() 를 호출해야 count 를 구할 수 있는데
         // getPage 에서 content, pageable 확인 후에만 count 쿼리를 날리는 방식
+        // 팀/나이 조건이면 (team, age) 건수 행렬의 합계로 대신함
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition, countQuery));
 //        return new PageImpl<>(content, pageable, total);
     }
+
+    /**
+     * searchPageComplex 와 동일하지만 content 쿼리와 count 쿼리를 동시에 실행
+     * count 는 별도 커넥션의 읽기 전용 트랜잭션에서 실행되므로 커밋된 데이터 기준으로 계산됨
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition rawCondition, Pageable pageable) {
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 2);
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+        if (searchViewEnabled) {
+            return searchViewPage(condition, pageable, true);
+        }
+        JPAQuery<Member> countQuery = queryFactory
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
+                );
+
+        return parallelPageExecutor.getPage(() -> queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch(), pageable, countQuery);
+    }
+
+    /**
+     * 대량 검색용, DTO 를 만들지 않고 row 를 스트리밍으로 읽어서 컬럼 컨테이너에 바로 채움
+     */
+    @Override
+    public MemberTeamColumns searchColumnar(MemberSearchCondition rawCondition) {
+        MemberTeamColumns columns = new MemberTeamColumns();
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 1);
+            return columns;
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+
+        try (CloseableIterator<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
+                )
+                .setHint("org.hibernate.fetchSize", 1000)
+                .iterate()) {
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                columns.add(row.get(0, Long.class), row.get(1, String.class), row.get(2, Integer.class),
+                        row.get(3, Long.class), row.get(4, String.class));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 요청한 컬럼만 select, team 컬럼(teamName)이 없으면 team 조인도 하지 않음
+     * teamId 는 member.team.id (= member.team_id FK 컬럼) 로 조회하고, teamName 조건은 서브쿼리이므로 조인이 필요 없다.
+     */
+    @Override
+    public MemberFieldRows searchFields(MemberSearchCondition rawCondition, List<MemberField> fields) {
+        NormalizedSearch normalized = searchNormalizer.normalize(rawCondition);
+        if (normalized.isImpossible()) {
+            searchNormalizer.recordSkipped(normalized, 1);
+            return new MemberFieldRows(fields, Collections.emptyList());
+        }
+        MemberSearchCondition condition = normalized.getCondition();
+        Expression<?>[] columns = new Expression<?>[fields.size()];
+        boolean teamJoin = false;
+        for (int i = 0; i < fields.size(); i++) {
+            columns[i] = column(fields.get(i));
+            teamJoin |= fields.get(i).isTeamColumn();
+        }
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(columns)
+                .from(member);
+        if (teamJoin) {
+            query.leftJoin(member.team, team);
+        }
+        List<Tuple> tuples = query
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        teamIdIn(condition.getTeamIds()),
+                        usernameMatches(condition.getUsernameStartsWith(), condition.getUsernameContains())
+                )
+                .fetch();
+
+        List<Object[]> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(tuple.toArray());
+        }
+        return new MemberFieldRows(fields, rows);
+    }
+
+    private Expression<?> column(MemberField field) {
+        switch (field) {
+            case MEMBER_ID:
+                return member.id;
+            case USERNAME:
+                return member.username;
+            case AGE:
+                return member.age;
+            case TEAM_ID:
+                return member.team.id;
+            case TEAM_NAME:
+                return team.name;
+            default:
+                throw new IllegalArgumentException("unknown field: " + field);
+        }
+    }
+
+    /**
+     * member_search_view 읽기 모델 조회 (member.search.view.enabled)
+     * MemberTeamDto 컬럼이 미리 저장되어 있으므로 team 조인 없이 조회, 조건은 search 와 같다.
+     */
+    private JPAQuery<MemberTeamDto> searchView(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName
+                ))
+                .from(memberSearchView)
+                .where(viewConditions(condition));
+    }
+
+    private Page<MemberTeamDto> searchViewPage(MemberSearchCondition condition, Pageable pageable, boolean parallel) {
+        JPAQuery<MemberSearchView> countQuery = queryFactory
+                .selectFrom(memberSearchView)
+                .where(viewConditions(condition));
+        Supplier<List<MemberTeamDto>> content = () -> searchView(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (parallel) {
+            return parallelPageExecutor.getPage(content, pageable, countQuery);
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable, () -> count(condition, countQuery));
+    }
+
+    private long count(MemberSearchCondition condition, JPAQuery<?> countQuery) {
+        Long total = teamAgeCountMatrix.count(condition);
+        return total != null ? total : countQuery.fetchCount();
+    }
+
+    private Predicate[] viewConditions(MemberSearchCondition condition) {
+        return new Predicate[]{
+                StringUtils.hasText(condition.getUsername()) ? memberSearchView.username.eq(condition.getUsername()) : null,
+                StringUtils.hasText(condition.getTeamName()) ? memberSearchView.teamName.eq(condition.getTeamName()) : null,
+                condition.getAgeGoe() != null ? memberSearchView.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? memberSearchView.age.loe(condition.getAgeLoe()) : null,
+                condition.getUsernames() != null && !condition.getUsernames().isEmpty()
+                        ? InListSupport.in(memberSearchView.username, condition.getUsernames()) : null,
+                condition.getTeamNames() != null && !condition.getTeamNames().isEmpty()
+                        ? InListSupport.in(memberSearchView.teamName, condition.getTeamNames()) : null,
+                condition.getTeamIds() != null && !condition.getTeamIds().isEmpty()
+                        ? InListSupport.in(memberSearchView.teamId, condition.getTeamIds()) : null,
+                usernameMatches(memberSearchView.memberId, memberSearchView.username,
+                        condition.getUsernameStartsWith(), condition.getUsernameContains())
+        };
+    }
 }
@@ -89,6 +89,29 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // content, count 쿼리 동시 실행
+    public Page<Member> applyPaginationParallel(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationParallel(
+                pageable,
+                contentQuery -> contentQuery.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGeo(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ),
+                countQuery -> countQuery.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGeo(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+        );
+    }
+
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
@@ -0,0 +1,39 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+// 팀별 집계는 member group by 대신 미리 집계된 team_stats 에서 조회 (팀 수만큼만 읽음)
+@Repository
+public class TeamStatsQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsQueryRepository(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.minAge,
+                        teamStats.maxAge
+                ))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId)) // 연관관계 없는 조인
+                .orderBy(teamStats.teamId.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,193 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / Projections.fields 대체
+ * Querydsl 의 QBean 은 row 마다 리플렉션(Method.invoke, Field.set)으로 값을 넣는데,
+ * 여기서는 DTO 타입 + 프로퍼티 조합별로 접근자를 한 번만 만들어서 재사용한다.
+ * * bean : 기본 생성자, setter 를 LambdaMetafactory 로 만든 Supplier, BiConsumer 로 호출
+ * * fields : 필드는 람다로 만들 수 없으므로 MethodHandle 로 직접 세팅
+ *
+ * 사용법은 Projections 와 같다. 별칭은 as("name"), ExpressionUtils.as(subQuery, "age") 로 지정
+ * QBean 과 마찬가지로 null 값은 세팅하지 않는다.
+ */
+public abstract class FastProjections {
+
+    private static final ConcurrentHashMap<List<Object>, Accessors> ACCESSORS = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new AccessorBean<>(type, accessors(type, false, exprs), exprs);
+    }
+
+    public static <T> FactoryExpression<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new AccessorBean<>(type, accessors(type, true, exprs), exprs);
+    }
+
+    private static Accessors accessors(Class<?> type, boolean fieldAccess, Expression<?>... exprs) {
+        List<Object> key = new ArrayList<>(exprs.length + 2);
+        key.add(type);
+        key.add(fieldAccess);
+        for (Expression<?> expr : exprs) {
+            key.add(propertyName(expr));
+        }
+        return ACCESSORS.computeIfAbsent(key, k -> createAccessors(type, fieldAccess, k.subList(2, k.size())));
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) expr).getArg(1);
+            if (alias instanceof Path) {
+                return ((Path<?>) alias).getMetadata().getName();
+            }
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use as(\"property\") to name it");
+    }
+
+    private static Accessors createAccessors(Class<?> type, boolean fieldAccess, List<Object> names) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            Supplier<Object> constructor = constructor(lookup, type);
+            @SuppressWarnings("unchecked")
+            BiConsumer<Object, Object>[] setters = new BiConsumer[names.size()];
+            for (int i = 0; i < setters.length; i++) {
+                String name = (String) names.get(i);
+                setters[i] = fieldAccess ? fieldSetter(type, name) : propertySetter(lookup, type, name);
+            }
+            return new Accessors(constructor, setters);
+        } catch (Throwable e) {
+            throw new ExpressionException("Cannot create accessors for " + type.getName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> constructor(MethodHandles.Lookup lookup, Class<?> type) throws Throwable {
+        MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                constructor,
+                MethodType.methodType(type));
+        return (Supplier<Object>) site.getTarget().invoke();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> propertySetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws Throwable {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, name);
+        if (descriptor == null || descriptor.getWriteMethod() == null) {
+            throw new IllegalArgumentException("No setter for property " + name + " of " + type.getName());
+        }
+        Method writeMethod = descriptor.getWriteMethod();
+        Class<?> propertyType = ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0]);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                lookup.unreflect(writeMethod),
+                MethodType.methodType(void.class, type, propertyType)); // int 프로퍼티면 Integer 를 언박싱
+        return (BiConsumer<Object, Object>) site.getTarget().invoke();
+    }
+
+    private static BiConsumer<Object, Object> fieldSetter(Class<?> type, String name) throws Throwable {
+        Field field = findField(type, name);
+        MethodHandle setter = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                .unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (bean, value) -> {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExpressionException(e.getMessage(), e);
+            }
+        };
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+    }
+
+    private static class Accessors {
+        final Supplier<Object> constructor;
+        final BiConsumer<Object, Object>[] setters;
+
+        Accessors(Supplier<Object> constructor, BiConsumer<Object, Object>[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+    }
+
+    private static class AccessorBean<T> extends FactoryExpressionBase<T> {
+
+        private final Accessors accessors;
+        private final List<Expression<?>> args;
+
+        AccessorBean(Class<? extends T> type, Accessors accessors, Expression<?>... args) {
+            super(type);
+            this.accessors = accessors;
+            this.args = Collections.unmodifiableList(Arrays.asList(args));
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... a) {
+            Object bean = accessors.constructor.get();
+            BiConsumer<Object, Object>[] setters = accessors.setters;
+            for (int i = 0; i < a.length; i++) {
+                Object value = a[i];
+                if (value != null) {
+                    setters[i].accept(bean, value);
+                }
+            }
+            return (T) bean;
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.SimpleExpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * IN 절 파라미터 개수 정리
+ * * 한 IN 절은 최대 MAX_SIZE 개 (DB 마다 제한이 있음) 로 나눈다
+ * * 파라미터 개수를 1, 2, 4, ... 512, MAX_SIZE 중 하나로 맞춰서 (마지막 값 반복) 생성되는 SQL 종류를 제한한다
+ *   개수마다 SQL 이 달라지면 Hibernate 쿼리 플랜 캐시, DB statement 캐시가 개수별로 쌓이기 때문
+ */
+public abstract class InListSupport {
+
+    public static final int MAX_SIZE = 1000;
+
+    private InListSupport() {
+    }
+
+    public static int paddedSize(int size) {
+        if (size <= 1) {
+            return size;
+        }
+        int padded = Integer.highestOneBit(size - 1) << 1;
+        return Math.min(padded, MAX_SIZE);
+    }
+
+    public static <T> List<T> pad(List<T> values) {
+        int padded = paddedSize(values.size());
+        if (padded == values.size()) {
+            return values;
+        }
+        List<T> result = new ArrayList<>(padded);
+        result.addAll(values);
+        T last = values.get(values.size() - 1);
+        while (result.size() < padded) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    /**
+     * MAX_SIZE 단위로 나누고 각각 padding
+     */
+    public static <T> List<List<T>> partition(List<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<T>> chunks = new ArrayList<>((values.size() + MAX_SIZE - 1) / MAX_SIZE);
+        for (int from = 0; from < values.size(); from += MAX_SIZE) {
+            chunks.add(pad(values.subList(from, Math.min(values.size(), from + MAX_SIZE))));
+        }
+        return chunks;
+    }
+
+    /**
+     * path in (...) or path in (...) ... 중복 값은 제거
+     */
+    public static <T> BooleanExpression in(SimpleExpression<T> path, Collection<T> values) {
+        BooleanExpression result = null;
+        for (List<T> chunk : partition(new ArrayList<>(new LinkedHashSet<>(values)))) {
+            BooleanExpression in = path.in(chunk);
+            result = result == null ? in : result.or(in);
+        }
+        return result;
+    }
+}
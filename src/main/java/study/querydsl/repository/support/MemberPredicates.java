@@ -0,0 +1,60 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import org.springframework.util.StringUtils;
+import study.querydsl.entity.QTeam;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * MemberSearchCondition 의 값 조건 → member 검색 where 절 (MemberRepositoryImpl, MemberJpaRepository, SearchIndexAdvisor 공용)
+ * 값이 없으면 null 이므로 where(...) 에 그대로 넘기면 된다.
+ *
+ * teamName/teamNames 는 left join 한 team.name 이 아니라 이름으로 팀 id 를 찾는 서브쿼리(ix_team_name)로 걸어서
+ * member.team_id 인덱스(ix_member_team_id_age)를 사용한다. (외부 조인의 바깥쪽인 member 를 전부 읽지 않도록)
+ * 저장소마다 따로 쓰면 한쪽만 바뀌어도 SearchIndexAdvisor 가 알아챌 수 없으므로 여기에만 둔다.
+ */
+public abstract class MemberPredicates {
+
+    // 조회 컬럼용으로 left join 하는 team 과 구분되는 서브쿼리용 별칭
+    private static final QTeam teamByName = new QTeam("teamByName");
+
+    private MemberPredicates() {
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName)
+                ? member.team.id.in(JPAExpressions.select(teamByName.id).from(teamByName).where(teamByName.name.eq(teamName)))
+                : null;
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    // 여러 값 조건은 IN 절로, 개수가 많으면 나눠서 OR 로 묶음 (InListSupport)
+    public static BooleanExpression usernameIn(List<String> usernames) {
+        return usernames != null && !usernames.isEmpty() ? InListSupport.in(member.username, usernames) : null;
+    }
+
+    public static BooleanExpression teamNameIn(List<String> teamNames) {
+        return teamNames != null && !teamNames.isEmpty()
+                ? member.team.id.in(JPAExpressions.select(teamByName.id).from(teamByName).where(InListSupport.in(teamByName.name, teamNames)))
+                : null;
+    }
+
+    public static BooleanExpression teamIdIn(List<Long> teamIds) {
+        return teamIds != null && !teamIds.isEmpty() ? InListSupport.in(member.team.id, teamIds) : null;
+    }
+}
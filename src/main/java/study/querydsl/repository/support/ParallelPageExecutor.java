@@ -0,0 +1,125 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.CustomizableThreadFactory;
+import study.querydsl.monitoring.RepositoryCall;
+import study.querydsl.monitoring.StatementCounter;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * content 쿼리와 count 쿼리를 동시에 실행하는 페이징 지원
+ * * content 쿼리는 호출한 스레드의 트랜잭션(커넥션)에서 실행
+ * * count 쿼리는 전용 executor 스레드에서 별도의 읽기 전용 트랜잭션(= 별도 커넥션)으로 실행
+ * * 페이지 응답 시간이 content + count 에서 max(content, count) 로 줄어든다
+ * * count 쿼리는 요청의 SQL 수(StatementCounter, @StatementBudget)에 넣지 않음
+ *   큐가 가득 차서 호출 스레드에서 실행될 때도 빼므로 요청당 SQL 수가 executor 상태에 따라 달라지지 않는다
+ *
+ * count 쿼리가 필요 없는 경우(첫 페이지이면서 컨텐츠가 페이지 사이즈보다 작거나, 마지막 페이지)는
+ * PageableExecutionUtils 와 동일하게 판단하고 실행 중인 count 쿼리를 취소한다.
+ *
+ * 주의: count 는 별도 트랜잭션이라 호출한 트랜잭션에서 아직 커밋되지 않은 변경은 보이지 않는다.
+ */
+@Component
+public class ParallelPageExecutor {
+
+    // JPA 표준 쿼리 타임아웃 힌트 (ms), DB 쪽에서 statement 를 취소하도록 함
+    private static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public ParallelPageExecutor(PlatformTransactionManager transactionManager,
+                                @Value("${member.search.parallel-page.pool-size:4}") int poolSize,
+                                @Value("${member.search.parallel-page.queue-capacity:100}") int queueCapacity,
+                                @Value("${member.search.parallel-page.timeout-ms:3000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)));
+
+        // 큐가 가득 차면 호출 스레드에서 count 를 실행 (= 기존 순차 실행과 동일)
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("page-count-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> Page<T> getPage(Supplier<List<T>> contentSupplier, Pageable pageable, JPAQuery<?> countQuery) {
+        if (pageable.isUnpaged()) {
+            List<T> content = contentSupplier.get();
+            return new PageImpl<>(content, pageable, content.size());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        countQuery.setHint(QUERY_TIMEOUT_HINT, timeoutMillis);
+        RepositoryCall call = RepositoryCall.current(); // count 쿼리 지연 시간도 호출한 repository 메서드로 기록
+        Future<Long> countFuture = executor.submit(() -> StatementCounter.detached(() -> RepositoryCall.callAs(call,
+                () -> readOnlyTransaction.execute(status -> countQuery.fetchCount()))));
+
+        List<T> content;
+        try {
+            content = contentSupplier.get();
+        } catch (RuntimeException e) {
+            countFuture.cancel(true);
+            throw e;
+        }
+
+        // PageableExecutionUtils.getPage 와 같은 기준으로 count 생략
+        if (pageable.getOffset() == 0) {
+            if (pageable.getPageSize() > content.size()) {
+                countFuture.cancel(true);
+                return new PageImpl<>(content, pageable, content.size());
+            }
+        } else if (content.size() != 0 && pageable.getPageSize() > content.size()) {
+            countFuture.cancel(true);
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+        }
+
+        return new PageImpl<>(content, pageable, awaitCount(countFuture, deadline));
+    }
+
+    private long awaitCount(Future<Long> countFuture, long deadline) {
+        try {
+            return countFuture.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            countFuture.cancel(true);
+            throw new QueryTimeoutException("count query timed out after " + timeoutMillis + "ms", e);
+        } catch (InterruptedException e) {
+            countFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for count query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -35,6 +35,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ParallelPageExecutor parallelPageExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -57,11 +58,17 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired
+    public void setParallelPageExecutor(ParallelPageExecutor parallelPageExecutor) {
+        this.parallelPageExecutor = parallelPageExecutor;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(parallelPageExecutor, "ParallelPageExecutor must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -101,4 +108,21 @@ public abstract class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
+
+    // content, count 쿼리 동시 실행 (count 는 별도 커넥션의 읽기 전용 트랜잭션)
+    protected <T> Page<T> applyPaginationParallel(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery countResult = jpaQuery.clone(); // 페이징 적용 전에 복제해서 스레드 간 공유하지 않음
+        return parallelPageExecutor.getPage(() -> getQuerydsl().applyPagination(pageable,
+                jpaQuery).fetch(), pageable, countResult);
+    }
+    protected <T> Page<T> applyPaginationParallel(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery) {
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        return parallelPageExecutor.getPage(() -> getQuerydsl().applyPagination(pageable,
+                jpaContentQuery).fetch(), pageable, countResult);
+    }
 }
@@ -0,0 +1,128 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 의 username/teamName/ageGoe/ageLoe 조합 16가지 검색 쿼리에 EXPLAIN 을 실행해서
+ * 인덱스 없이 테이블 전체를 읽는(tableScan) 조합을 알려줌
+ * * 쿼리는 MemberRepositoryImpl.search 의 content 쿼리와 같은 모양 (member left join team)
+ * * 조건은 저장소와 같은 MemberPredicates 로 만들어서, 저장소의 조건이 바뀌면 여기 결과도 같이 바뀐다
+ *   (teamName 은 member.team_id in (select id from team where name = ?), MemberPredicates 참고)
+ * * JPQL 은 Hibernate 쿼리 플랜으로 SQL 로 바꾸고, 파라미터는 예시 값으로 바인딩
+ * * 조건이 없는 조합은 전체 조회가 당연하므로 경고하지 않음
+ *
+ * member.search.index-advisor.enabled=true 면 기동 완료 시 실행, 테스트에서는 advise() 를 직접 호출
+ */
+@Slf4j
+@Component
+public class SearchIndexAdvisor {
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final JPAQueryFactory queryFactory;
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public SearchIndexAdvisor(JPAQueryFactory queryFactory, EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${member.search.index-advisor.enabled:false}") boolean enabled) {
+        this.queryFactory = queryFactory;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        for (ShapeReport report : advise()) {
+            if (report.isTableScan() && !report.isEmptyShape()) {
+                log.warn("search shape [{}] falls back to a table scan: {}", report.getShape(), report.getPlan());
+            } else {
+                log.debug("search shape [{}]: {}", report.getShape(), report.getPlan());
+            }
+        }
+    }
+
+    public List<ShapeReport> advise() {
+        List<ShapeReport> reports = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            reports.add(explain(mask));
+        }
+        return reports;
+    }
+
+    private ShapeReport explain(int mask) {
+        // 비트 순서 = where 절 순서 = 바인딩 순서 (username, teamName, ageGoe, ageLoe)
+        BooleanBuilder where = new BooleanBuilder();
+        List<Object> parameters = new ArrayList<>();
+        StringJoiner shape = new StringJoiner("+");
+        if ((mask & 1) != 0) {
+            where.and(MemberPredicates.usernameEq("member1"));
+            parameters.add("member1");
+            shape.add("username");
+        }
+        if ((mask & 2) != 0) {
+            where.and(MemberPredicates.teamNameEq("teamA"));
+            parameters.add("teamA");
+            shape.add("teamName");
+        }
+        if ((mask & 4) != 0) {
+            where.and(MemberPredicates.ageGoe(10));
+            parameters.add(10);
+            shape.add("ageGoe");
+        }
+        if ((mask & 8) != 0) {
+            where.and(MemberPredicates.ageLoe(40));
+            parameters.add(40);
+            shape.add("ageLoe");
+        }
+
+        JPAQuery<?> query = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where);
+        String sql = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(query.toString(), false, Collections.emptyMap())
+                .getSqlStrings()[0];
+
+        String plan = jdbcTemplate.query("explain " + sql, ps -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                ps.setObject(i + 1, parameters.get(i));
+            }
+        }, rs -> rs.next() ? rs.getString(1) : "");
+
+        String name = mask == 0 ? "none" : shape.toString();
+        return new ShapeReport(name, mask == 0, plan != null && plan.contains(TABLE_SCAN), plan);
+    }
+
+    @lombok.Value
+    public static class ShapeReport {
+        String shape;
+        boolean emptyShape;
+        boolean tableScan;
+        String plan;
+    }
+}
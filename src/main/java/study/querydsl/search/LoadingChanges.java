@@ -0,0 +1,58 @@
+package study.querydsl.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * DB 에서 읽어서 만드는 인메모리 검색 구조의 로드 중에 커밋된 변경 기록
+ * * 로드 중에 이벤트로 반영된 member id, 팀 id 는 이벤트 쪽이 최신이므로 로드 결과에서 건너뛴다 (skip, skipTeam)
+ *   (로드가 읽은 뒤 넣기 전에 커밋된 팀 이름 변경을 읽은 값으로 되돌리지 않도록)
+ * * id 별로 건너뛸 수 없는 구조(건수 합계 등)는 변경이 있었는지(changed) 보고 다시 로드한다
+ *
+ * 만들어질 때부터 로드 중 상태 (기동 후 첫 로드 전에 받은 이벤트도 기록)
+ * 스레드 안전하지 않음, 소유 객체의 write lock 안에서 호출
+ */
+class LoadingChanges {
+
+    private Set<Long> memberIds = new HashSet<>(); // 로드 중이 아니면 null
+    private Set<Long> teamIds = new HashSet<>();
+    private boolean changed;
+
+    void begin() {
+        memberIds = new HashSet<>();
+        teamIds = new HashSet<>();
+        changed = false;
+    }
+
+    void end() {
+        memberIds = null;
+        teamIds = null;
+        changed = false;
+    }
+
+    void memberChanged(Long id) {
+        if (memberIds != null) {
+            memberIds.add(id);
+            changed = true;
+        }
+    }
+
+    void teamChanged(Long id) {
+        if (teamIds != null) {
+            teamIds.add(id);
+            changed = true;
+        }
+    }
+
+    boolean skip(Long id) {
+        return memberIds != null && memberIds.contains(id);
+    }
+
+    boolean skipTeam(Long id) {
+        return teamIds != null && teamIds.contains(id);
+    }
+
+    boolean changed() {
+        return changed;
+    }
+}
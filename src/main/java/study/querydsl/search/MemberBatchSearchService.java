@@ -0,0 +1,155 @@
+package study.querydsl.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberBatchSearchResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 여러 검색 조건을 한 트랜잭션(= 한 커넥션)에서 실행
+ * * 조건은 먼저 MemberSearchNormalizer 로 정규화 (단건 검색과 같은 결과, " teamA " 와 "teamA" 는 같은 조건)
+ * * 모순인 조건은 실행하지 않고 빈 결과
+ * * 완전히 같은 조건은 한 번만 실행
+ * * teamName (또는 username) 만 다른 조건들은 IN 조건 하나로 합쳐서 한 번에 조회하고, 결과를 조건별로 다시 나눈다
+ *   (예: 대시보드에서 팀별로 같은 나이 조건을 검색하는 경우 팀 수만큼의 쿼리가 한 번으로 줄어듦)
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberBatchSearchService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberSearchNormalizer searchNormalizer;
+
+    public List<MemberBatchSearchResult> search(List<MemberSearchCondition> conditions) {
+        // 정규화한 조건으로 키를 만들고 묶어야 합친 쿼리 결과(정규화된 값)를 조건별로 다시 나눌 수 있음
+        // 모순인 조건은 키 없음(null)
+        List<MemberSearchKey> keys = new ArrayList<>(conditions.size());
+        Map<MemberSearchKey, MemberSearchCondition> distinct = new LinkedHashMap<>();
+        for (MemberSearchCondition condition : conditions) {
+            NormalizedSearch normalized = searchNormalizer.normalize(condition);
+            if (normalized.isImpossible()) {
+                searchNormalizer.recordSkipped(normalized, 1);
+                keys.add(null);
+                continue;
+            }
+            MemberSearchKey key = MemberSearchKey.of(normalized.getCondition());
+            keys.add(key);
+            distinct.putIfAbsent(key, normalized.getCondition());
+        }
+
+        Map<MemberSearchKey, List<MemberTeamDto>> results = new HashMap<>();
+        List<MemberSearchCondition> pending = new ArrayList<>(distinct.values());
+        pending = searchMerged(pending, results, teamNameAxis());
+        pending = searchMerged(pending, results, usernameAxis());
+        for (MemberSearchCondition condition : pending) {
+            results.put(MemberSearchKey.of(condition), memberJpaRepository.search(condition));
+        }
+
+        List<MemberBatchSearchResult> response = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            MemberSearchKey key = keys.get(i);
+            response.add(new MemberBatchSearchResult(i, key != null ? results.get(key) : new ArrayList<>()));
+        }
+        return response;
+    }
+
+    /**
+     * axis 값만 다른 조건끼리 묶어서 IN 조건 하나로 조회하고, 행의 axis 값으로 조건별 결과를 나눈다.
+     * 묶이지 않은 조건(혼자이거나 axis 조건이 없는 경우)은 반환해서 다음 단계로 넘긴다.
+     */
+    private List<MemberSearchCondition> searchMerged(List<MemberSearchCondition> conditions,
+                                                     Map<MemberSearchKey, List<MemberTeamDto>> results,
+                                                     MergeAxis axis) {
+        Map<MemberSearchKey, List<MemberSearchCondition>> groups = new LinkedHashMap<>();
+        List<MemberSearchCondition> rest = new ArrayList<>();
+        for (MemberSearchCondition condition : conditions) {
+            if (axis.mergeable(condition)) {
+                groups.computeIfAbsent(MemberSearchKey.of(axis.without(condition)), key -> new ArrayList<>()).add(condition);
+            } else {
+                rest.add(condition);
+            }
+        }
+
+        for (List<MemberSearchCondition> group : groups.values()) {
+            if (group.size() == 1) {
+                rest.add(group.get(0));
+                continue;
+            }
+
+            List<String> values = group.stream().map(axis.value).distinct().collect(Collectors.toList());
+            MemberSearchCondition merged = axis.without(group.get(0));
+            axis.setValues.accept(merged, values);
+
+            Map<String, List<MemberTeamDto>> rowsByValue = new HashMap<>();
+            for (MemberTeamDto row : memberJpaRepository.search(merged)) {
+                String value = axis.rowValue.apply(row);
+                if (value != null) {
+                    rowsByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(row);
+                }
+            }
+            for (MemberSearchCondition condition : group) {
+                results.put(MemberSearchKey.of(condition),
+                        rowsByValue.getOrDefault(axis.value.apply(condition), new ArrayList<>()));
+            }
+        }
+        return rest;
+    }
+
+    private static MergeAxis teamNameAxis() {
+        return new MergeAxis(MemberSearchCondition::getTeamName, MemberSearchCondition::getTeamNames,
+                MemberSearchCondition::setTeamName, MemberSearchCondition::setTeamNames, MemberTeamDto::getTeamName);
+    }
+
+    private static MergeAxis usernameAxis() {
+        return new MergeAxis(MemberSearchCondition::getUsername, MemberSearchCondition::getUsernames,
+                MemberSearchCondition::setUsername, MemberSearchCondition::setUsernames, MemberTeamDto::getUsername);
+    }
+
+    /**
+     * 합칠 수 있는 단일 값 조건과 대응되는 IN 조건
+     * 같은 축에 이미 IN 조건이 있는 조건은 합치면 의미가 달라지므로 합치지 않는다.
+     */
+    @RequiredArgsConstructor
+    private static class MergeAxis {
+
+        private final Function<MemberSearchCondition, String> value;
+        private final Function<MemberSearchCondition, List<String>> values;
+        private final BiConsumer<MemberSearchCondition, String> setValue;
+        private final BiConsumer<MemberSearchCondition, List<String>> setValues;
+        private final Function<MemberTeamDto, String> rowValue;
+
+        boolean mergeable(MemberSearchCondition condition) {
+            List<String> existing = values.apply(condition);
+            return StringUtils.hasText(value.apply(condition)) && (existing == null || existing.isEmpty());
+        }
+
+        MemberSearchCondition without(MemberSearchCondition condition) {
+            MemberSearchCondition copy = new MemberSearchCondition();
+            copy.setUsername(condition.getUsername());
+            copy.setTeamName(condition.getTeamName());
+            copy.setAgeGoe(condition.getAgeGoe());
+            copy.setAgeLoe(condition.getAgeLoe());
+            copy.setUsernameStartsWith(condition.getUsernameStartsWith());
+            copy.setUsernameContains(condition.getUsernameContains());
+            copy.setUsernames(condition.getUsernames());
+            copy.setTeamNames(condition.getTeamNames());
+            copy.setTeamIds(condition.getTeamIds());
+            setValue.accept(copy, null);
+            return copy;
+        }
+    }
+}
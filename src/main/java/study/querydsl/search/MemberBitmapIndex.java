@@ -0,0 +1,300 @@
+package study.querydsl.search;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member.id 비트맵 인덱스 (RoaringBitmap), 팀/나이 조건 검색의 필터링과 전체 건수를 DB 대신 계산
+ * * 팀 id 별, 나이 값별 비트맵 하나씩 + 팀 없는 회원 비트맵 + 전체 비트맵
+ * * teamName → 팀 id 목록 (팀 이름은 유일하지 않음)
+ * * 조건 = 팀 비트맵들의 합집합 ∩ 나이 범위 비트맵들의 합집합, 전체 건수는 cardinality
+ * * 페이지에 해당하는 id (id 오름차순) 만 골라서 DB 에서는 그 row 만 조회한다
+ *
+ * 처리할 수 있는 조건은 팀(teamName, teamNames, teamIds) 과 나이(ageGoe, ageLoe) 조합뿐이고
+ * username 조건, 정렬이 있는 페이지, 쓰기 트랜잭션, 로드 전에는 null 을 반환해서 DB 로 조회하게 한다.
+ * 비트맵은 int 기반이므로 member id 가 int 범위를 넘으면 인덱스를 끄고 DB 로만 조회한다.
+ *
+ * 기동 완료 시 member/team 을 스트리밍으로 읽어서 만들고, 커밋된 MemberChangedEvent/TeamChangedEvent 로 갱신
+ * 비트맵 계산과 DB 조회 사이에 커밋된 변경은 반영되지 않을 수 있다. (건수와 컨텐츠가 잠깐 어긋날 수 있음)
+ */
+@Slf4j
+@Component
+public class MemberBitmapIndex {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap noTeam = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byTeam = new HashMap<>();
+    private final TreeMap<Integer, RoaringBitmap> byAge = new TreeMap<>();
+    private final TeamIdsByName teamIdsByName = new TeamIdsByName();
+    private final LoadingChanges loadingChanges = new LoadingChanges();
+    private volatile boolean loaded;
+    private volatile boolean overflowed;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MemberBitmapIndex(JPAQueryFactory queryFactory,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${member.search.bitmap-index.enabled:false}") boolean enabled) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.hits = meterRegistry.counter("member.search.bitmap", "result", "hit");
+        this.misses = meterRegistry.counter("member.search.bitmap", "result", "miss");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                lock.writeLock().lock();
+                try {
+                    if (!loadingChanges.skipTeam(row.get(team.id))) {
+                        teamIdsByName.put(row.get(team.id), row.get(team.name));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            try (CloseableIterator<Tuple> members = queryFactory
+                    .select(member.id, member.age, member.team.id)
+                    .from(member)
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .iterate()) {
+                while (members.hasNext()) {
+                    Tuple row = members.next();
+                    Long id = row.get(member.id);
+                    lock.writeLock().lock();
+                    try {
+                        if (!loadingChanges.skip(id)) {
+                            put(id, row.get(member.age), row.get(member.team.id));
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            all.runOptimize();
+            noTeam.runOptimize();
+            byTeam.values().forEach(RoaringBitmap::runOptimize);
+            byAge.values().forEach(RoaringBitmap::runOptimize);
+            loadingChanges.end();
+            loaded = true;
+            log.info("member bitmap index loaded: {} members, {} teams, {} ages, {} bytes",
+                    all.getLongCardinality(), byTeam.size(), byAge.size(), sizeInBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Long id = event.getMemberId();
+            loadingChanges.memberChanged(id);
+            remove(id, event.getBefore());
+            MemberState after = event.getAfter();
+            if (event.getType() != EntityChangeType.DELETE && after != null) {
+                put(id, after.getAge(), after.getTeamId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            loadingChanges.teamChanged(event.getTeamId());
+            teamIdsByName.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 해당하는 페이지의 member id (오름차순) 와 전체 건수, 처리할 수 없는 조건이면 null
+     * 페이지가 없는 요청은 id 목록이 테이블 전체가 될 수 있으므로 null (DB 로 조회)
+     */
+    public PageIds page(MemberSearchCondition condition, Pageable pageable) {
+        if (!loaded || overflowed || SearchTransactions.inWriteTransaction()
+                || pageable.isUnpaged() || pageable.getSort().isSorted() || !supports(condition)) {
+            if (enabled) {
+                misses.increment();
+            }
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = filter(condition);
+            long total = result.getLongCardinality();
+            if (pageable.getOffset() >= total) {
+                hits.increment();
+                return new PageIds(Collections.emptyList(), total);
+            }
+
+            List<Long> ids = new ArrayList<>(pageable.getPageSize());
+            PeekableIntIterator iterator = result.getIntIterator();
+            iterator.advanceIfNeeded(result.select((int) pageable.getOffset()));
+            while (iterator.hasNext() && ids.size() < pageable.getPageSize()) {
+                ids.add((long) iterator.next());
+            }
+            hits.increment();
+            return new PageIds(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean supports(MemberSearchCondition condition) {
+        return condition.getUsername() == null
+                && (condition.getUsernames() == null || condition.getUsernames().isEmpty())
+                && condition.getUsernameStartsWith() == null
+                && condition.getUsernameContains() == null;
+    }
+
+    // 아래는 lock 안에서 호출
+
+    private RoaringBitmap filter(MemberSearchCondition condition) {
+        RoaringBitmap result = all.clone();
+
+        // 회원은 팀 하나에만 속하므로 팀 조건마다 and 하는 대신 조건을 모두 만족하는 팀 id 의 비트맵 합집합과 and
+        Set<Long> teamIds = teamIdsByName.resolve(condition);
+        if (teamIds != null) {
+            result.and(teams(teamIds));
+        }
+
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            if (from > to) {
+                return new RoaringBitmap();
+            }
+            result.and(FastAggregation.or(byAge.subMap(from, true, to, true).values().iterator()));
+        }
+        return result;
+    }
+
+    private RoaringBitmap teams(Iterable<Long> teamIds) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        for (Long teamId : teamIds) {
+            RoaringBitmap bitmap = byTeam.get(teamId);
+            if (bitmap != null) {
+                bitmaps.add(bitmap);
+            }
+        }
+        return bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.or(bitmaps.iterator());
+    }
+
+    private void put(Long id, int age, Long teamId) {
+        if (id > Integer.MAX_VALUE) {
+            overflowed = true;
+            return;
+        }
+        int bit = id.intValue();
+        all.add(bit);
+        byAge.computeIfAbsent(age, a -> new RoaringBitmap()).add(bit);
+        if (teamId == null) {
+            noTeam.add(bit);
+        } else {
+            byTeam.computeIfAbsent(teamId, t -> new RoaringBitmap()).add(bit);
+        }
+    }
+
+    /**
+     * 변경 전 상태를 알면 해당 비트맵에서만, 모르면 모든 팀/나이 비트맵에서 제거
+     */
+    private void remove(Long id, MemberState before) {
+        if (id > Integer.MAX_VALUE) {
+            return;
+        }
+        int bit = id.intValue();
+        all.remove(bit);
+        noTeam.remove(bit);
+        if (before != null) {
+            RoaringBitmap age = byAge.get(before.getAge());
+            if (age != null) {
+                age.remove(bit);
+            }
+            if (before.getTeamId() != null && byTeam.containsKey(before.getTeamId())) {
+                byTeam.get(before.getTeamId()).remove(bit);
+            }
+            return;
+        }
+        byAge.values().forEach(bitmap -> bitmap.remove(bit));
+        byTeam.values().forEach(bitmap -> bitmap.remove(bit));
+    }
+
+    private long sizeInBytes() {
+        long bytes = all.getLongSizeInBytes() + noTeam.getLongSizeInBytes();
+        for (RoaringBitmap bitmap : byTeam.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        for (RoaringBitmap bitmap : byAge.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+
+    @lombok.Value
+    public static class PageIds {
+        List<Long> ids;
+        long total;
+    }
+}
@@ -0,0 +1,197 @@
+package study.querydsl.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색 결과 캐시
+ * * 키 : 정규화된 검색 조건 + 페이징 (MemberSearchNormalizer, MemberSearchKey)
+ * * 크기 : 캐시된 row 수 기준 weight 로 제한, TTL 이후 만료
+ * * 무효화 : 커밋된 Member/Team 변경 이벤트로 영향을 받는 키만 골라서 제거
+ *
+ * 쓰기 트랜잭션 안에서 호출되면 캐시를 거치지 않는다. (SearchTransactions)
+ * 캐시 미스는 SearchSingleFlight 를 거쳐서 같은 키의 동시 조회를 한 번으로 합친다. (캐시를 꺼도 동일)
+ * 히트율/제거 수는 micrometer cache.* 메트릭 (cache=member.search) 으로 노출
+ * 무효화한 다음에 MemberTableVersions 의 버전을 올린다. (ETag 가 무효화 전 캐시 결과에 붙지 않도록)
+ */
+@Component
+public class MemberSearchCache {
+
+    private final SearchSingleFlight singleFlight;
+    private final MemberSearchNormalizer searchNormalizer;
+    private final MemberTableVersions tableVersions;
+    private final boolean enabled;
+    private final Cache<MemberSearchKey, CachedSearch> cache;
+    private final Counter invalidations;
+
+    // 로딩 중에 무효화가 일어나면 로딩 결과를 저장하지 않기 위한 세대 번호
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCache(MeterRegistry meterRegistry,
+                             SearchSingleFlight singleFlight,
+                             MemberSearchNormalizer searchNormalizer,
+                             MemberTableVersions tableVersions,
+                             @Value("${member.search.cache.enabled:true}") boolean enabled,
+                             @Value("${member.search.cache.max-rows:100000}") long maxRows,
+                             @Value("${member.search.cache.ttl:30s}") Duration ttl) {
+        this.singleFlight = singleFlight;
+        this.searchNormalizer = searchNormalizer;
+        this.tableVersions = tableVersions;
+        this.enabled = enabled;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((MemberSearchKey key, CachedSearch value) -> value.getContent().size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<MemberSearchKey, CachedSearch>build(), "member.search");
+        this.invalidations = Counter.builder("member.search.cache.invalidations")
+                .description("Member/Team 변경으로 무효화된 캐시 엔트리 수")
+                .register(meterRegistry);
+    }
+
+    public List<MemberTeamDto> getList(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+        if (SearchTransactions.inWriteTransaction()) {
+            return loader.get();
+        }
+
+        // 같은 의미의 조건은 같은 키로 (모순인 조건은 저장소에서 DB 조회 없이 처리하므로 캐시하지 않음)
+        NormalizedSearch normalized = searchNormalizer.normalize(condition);
+        if (normalized.isImpossible()) {
+            return loader.get();
+        }
+        MemberSearchKey key = MemberSearchKey.of(normalized.getCondition());
+        if (!enabled) {
+            return singleFlight.execute(key, loader);
+        }
+        CachedSearch cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.getContent();
+        }
+
+        // 저장은 실제로 조회한 호출만, 조회를 시작할 때의 세대로 (합류한 호출은 무효화 이후에 왔어도 결과는 그 전 조회)
+        return singleFlight.execute(key, () -> {
+            long loadedGeneration = generation.get();
+            List<MemberTeamDto> content = loader.get();
+            store(key, new CachedSearch(Collections.unmodifiableList(new ArrayList<>(content)), content.size()), loadedGeneration);
+            return content;
+        });
+    }
+
+    public Page<MemberTeamDto> getPage(MemberSearchCondition condition, Pageable pageable, Supplier<Page<MemberTeamDto>> loader) {
+        if (SearchTransactions.inWriteTransaction()) {
+            return loader.get();
+        }
+
+        NormalizedSearch normalized = searchNormalizer.normalize(condition);
+        if (normalized.isImpossible()) {
+            return loader.get();
+        }
+        MemberSearchKey key = MemberSearchKey.of(normalized.getCondition(), pageable);
+        if (!enabled) {
+            return singleFlight.execute(key, loader);
+        }
+        CachedSearch cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return new PageImpl<>(cached.getContent(), pageable, cached.getTotal());
+        }
+
+        return singleFlight.execute(key, () -> {
+            long loadedGeneration = generation.get();
+            Page<MemberTeamDto> page = loader.get();
+            store(key, new CachedSearch(Collections.unmodifiableList(new ArrayList<>(page.getContent())), page.getTotalElements()), loadedGeneration);
+            return page;
+        });
+    }
+
+    private void store(MemberSearchKey key, CachedSearch value, long loadedGeneration) {
+        cache.put(key, value);
+        // 로딩하는 동안 무효화가 있었다면 변경 전 데이터일 수 있으므로 버림
+        if (generation.get() != loadedGeneration) {
+            cache.asMap().remove(key, value);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        invalidate(entry -> {
+            MemberSearchKey key = entry.getKey();
+            boolean before = event.getType() != EntityChangeType.INSERT && key.matches(event.getBefore());
+            boolean after = event.getType() != EntityChangeType.DELETE && key.matches(event.getAfter());
+            return before || after;
+        });
+        tableVersions.memberChanged();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (event.getType() == EntityChangeType.INSERT) {
+            tableVersions.teamChanged();
+            return; // 새 팀에는 아직 회원이 없음, 회원 소속 변경은 MemberChangedEvent 로 처리
+        }
+        invalidate(entry -> {
+            MemberSearchKey key = entry.getKey();
+            if (key.getTeamName() != null && (event.getBeforeName() == null
+                    || key.getTeamName().equals(event.getBeforeName()) || key.getTeamName().equals(event.getAfterName()))) {
+                return true;
+            }
+            if (key.getTeamNames() != null && (event.getBeforeName() == null
+                    || key.getTeamNames().contains(event.getBeforeName()) || key.getTeamNames().contains(event.getAfterName()))) {
+                return true;
+            }
+            // 결과에 포함된 teamName 값이 바뀜
+            return entry.getValue().getContent().stream()
+                    .anyMatch(dto -> Objects.equals(dto.getTeamId(), event.getTeamId()));
+        });
+        tableVersions.teamChanged();
+    }
+
+    private void invalidate(Predicate<Map.Entry<MemberSearchKey, CachedSearch>> affected) {
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> {
+            boolean remove = affected.test(entry);
+            if (remove) {
+                invalidations.increment();
+            }
+            return remove;
+        });
+    }
+
+    /**
+     * 전체 무효화 (이벤트가 발행되지 않는 JPQL 벌크 연산 이후 호출)
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        tableVersions.bump();
+    }
+
+    @lombok.Value
+    static class CachedSearch {
+        List<MemberTeamDto> content;
+        long total;
+    }
+}
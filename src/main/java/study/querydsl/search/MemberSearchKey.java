@@ -0,0 +1,152 @@
+package study.querydsl.search;
+
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.event.MemberState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * 검색 조건 + 페이징을 정규화한 키 (캐시 키로 사용)
+ * * 공백 문자열, 빈 목록은 조건이 없는 것과 같으므로 null 로 통일
+ * * 여러 값 조건(IN)은 순서와 중복이 의미 없으므로 정렬된 중복 없는 목록으로 통일
+ *
+ * 값의 앞뒤 공백은 여기서 자르지 않는다. 키는 MemberSearchNormalizer 로 정규화한 조건으로 만들고,
+ * 저장소도 같은 정규화를 거쳐 조회하므로 같은 키는 항상 같은 결과가 된다. (키에서만 자르면 " member1 " 과 "member1" 이
+ * 같은 엔트리를 쓰면서 조회 결과는 달라짐)
+ */
+@Value
+public class MemberSearchKey {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+    String usernameStartsWith;
+    String usernameContains;
+    List<String> usernames;
+    List<String> teamNames;
+    List<Long> teamIds;
+
+    // List 검색과 Page 검색은 결과 타입이 다르므로 구분, 페이징 정보가 없으면 -1
+    boolean paged;
+    int page;
+    int size;
+    String sort;
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        return of(condition, false, -1, -1, "");
+    }
+
+    public static MemberSearchKey of(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return of(condition, true, -1, -1, "");
+        }
+        return of(condition, true, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+    }
+
+    private static MemberSearchKey of(MemberSearchCondition condition, boolean paged, int page, int size, String sort) {
+        return new MemberSearchKey(canonical(condition.getUsername()), canonical(condition.getTeamName()),
+                condition.getAgeGoe(), condition.getAgeLoe(),
+                hasLength(condition.getUsernameStartsWith()), hasLength(condition.getUsernameContains()),
+                canonical(condition.getUsernames()), canonical(condition.getTeamNames()), canonical(condition.getTeamIds()),
+                paged, page, size, sort);
+    }
+
+    // 검색 쿼리와 같은 기준 (StringUtils.hasText) 으로 조건 없음을 판단
+    private static String canonical(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    // 접두사/부분 문자열은 공백도 의미가 있으므로 빈 문자열만 조건 없음으로 본다
+    private static String hasLength(String value) {
+        return StringUtils.hasLength(value) ? value : null;
+    }
+
+    private static <T extends Comparable<T>> List<T> canonical(Collection<T> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        TreeSet<T> sorted = new TreeSet<>();
+        for (T value : values) {
+            if (value != null) {
+                sorted.add(value);
+            }
+        }
+        return new ArrayList<>(sorted);
+    }
+
+    /**
+     * 값 없이 어떤 조건이 있는지만 (예: teamName+ageGoe, 조건이 없으면 none), 통계를 외부에 보여줄 때 사용
+     */
+    public String shape() {
+        StringJoiner shape = new StringJoiner("+");
+        add(shape, "username", username);
+        add(shape, "teamName", teamName);
+        add(shape, "ageGoe", ageGoe);
+        add(shape, "ageLoe", ageLoe);
+        add(shape, "usernameStartsWith", usernameStartsWith);
+        add(shape, "usernameContains", usernameContains);
+        add(shape, "usernames", usernames);
+        add(shape, "teamNames", teamNames);
+        add(shape, "teamIds", teamIds);
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
+
+    private static void add(StringJoiner shape, String name, Object value) {
+        if (value != null) {
+            shape.add(name);
+        }
+    }
+
+    /**
+     * 해당 상태의 회원이 이 조건의 검색 결과에 포함될 수 있는지
+     * 팀 이름을 모르는 경우(초기화되지 않은 프록시)는 포함될 수 있다고 본다.
+     */
+    public boolean matches(MemberState state) {
+        if (state == null) {
+            return true;
+        }
+        if (username != null && !username.equals(state.getUsername())) {
+            return false;
+        }
+        if (teamName != null) {
+            if (!state.hasTeam()) {
+                return false;
+            }
+            if (state.getTeamName() != null && !teamName.equals(state.getTeamName())) {
+                return false;
+            }
+        }
+        if (usernameStartsWith != null && (state.getUsername() == null || !state.getUsername().startsWith(usernameStartsWith))) {
+            return false;
+        }
+        if (usernameContains != null && (state.getUsername() == null || !state.getUsername().contains(usernameContains))) {
+            return false;
+        }
+        if (usernames != null && !usernames.contains(state.getUsername())) {
+            return false;
+        }
+        if (teamIds != null && !teamIds.contains(state.getTeamId())) {
+            return false;
+        }
+        if (teamNames != null) {
+            if (!state.hasTeam()) {
+                return false;
+            }
+            if (state.getTeamName() != null && !teamNames.contains(state.getTeamName())) {
+                return false;
+            }
+        }
+        if (ageGoe != null && state.getAge() < ageGoe) {
+            return false;
+        }
+        return ageLoe == null || state.getAge() <= ageLoe;
+    }
+}
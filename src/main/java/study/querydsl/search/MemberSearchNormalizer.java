@@ -0,0 +1,143 @@
+package study.querydsl.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 검색 조건 정규화
+ * * 문자열은 앞뒤 공백 제거, 비어 있으면 조건 없음(null)
+ * * 여러 값 조건(IN)은 공백 제거 후 빈 값/중복 제거, 남는 값이 없으면 조건 없음
+ * * 단일 값 조건과 IN 조건이 함께 있으면 단일 값 조건만 남김 (단일 값이 IN 목록에 없으면 모순)
+ * * 나이는 0 이상이므로 ageGoe <= 0 은 조건 없음, ageLoe < 0 또는 ageGoe > ageLoe 는 모순
+ * * 커밋된 팀 중에 없는 teamName 은 모순 (TeamNameRegistry), teamNames 는 있는 이름만 남김
+ * * 확실히 없는 username 은 모순 (UsernameBloomFilter), usernames 는 있을 수도 있는 이름만 남김
+ *
+ * 모순인 조건은 DB 를 조회하지 않고 빈 결과로 응답하고, 생략한 쿼리 수를 member.search.short_circuit.queries 로 기록
+ * 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 팀이 있을 수 있으므로 팀 이름 확인은 하지 않는다. (SearchTransactions)
+ */
+@Component
+public class MemberSearchNormalizer {
+
+    private final TeamNameRegistry teamNameRegistry;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final MeterRegistry meterRegistry;
+
+    public MemberSearchNormalizer(TeamNameRegistry teamNameRegistry, UsernameBloomFilter usernameBloomFilter,
+                                  MeterRegistry meterRegistry) {
+        this.teamNameRegistry = teamNameRegistry;
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public NormalizedSearch normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(trim(condition.getUsername()));
+        normalized.setTeamName(trim(condition.getTeamName()));
+        normalized.setUsernameStartsWith(StringUtils.hasLength(condition.getUsernameStartsWith()) ? condition.getUsernameStartsWith() : null);
+        normalized.setUsernameContains(StringUtils.hasLength(condition.getUsernameContains()) ? condition.getUsernameContains() : null);
+        normalized.setUsernames(trim(condition.getUsernames()));
+        normalized.setTeamNames(trim(condition.getTeamNames()));
+        normalized.setTeamIds(distinct(condition.getTeamIds()));
+
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        normalized.setAgeGoe(ageGoe != null && ageGoe > 0 ? ageGoe : null);
+        normalized.setAgeLoe(ageLoe);
+        if (ageLoe != null && ageLoe < 0) {
+            return impossible(normalized, "negative_age");
+        }
+        if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+            return impossible(normalized, "age_range");
+        }
+
+        if (normalized.getUsername() != null && normalized.getUsernames() != null) {
+            if (!normalized.getUsernames().contains(normalized.getUsername())) {
+                return impossible(normalized, "username");
+            }
+            normalized.setUsernames(null);
+        }
+        if (normalized.getTeamName() != null && normalized.getTeamNames() != null) {
+            if (!normalized.getTeamNames().contains(normalized.getTeamName())) {
+                return impossible(normalized, "team_name");
+            }
+            normalized.setTeamNames(null);
+        }
+
+        if (!SearchTransactions.inWriteTransaction()) {
+            if (normalized.getUsername() != null && !usernameBloomFilter.mightContain(normalized.getUsername())) {
+                return impossible(normalized, "unknown_username");
+            }
+            if (normalized.getUsernames() != null) {
+                normalized.getUsernames().removeIf(username -> !usernameBloomFilter.mightContain(username));
+                if (normalized.getUsernames().isEmpty()) {
+                    return impossible(normalized, "unknown_username");
+                }
+            }
+            if (normalized.getTeamName() != null && !teamNameRegistry.mayExist(normalized.getTeamName())) {
+                return impossible(normalized, "unknown_team");
+            }
+            if (normalized.getTeamNames() != null) {
+                normalized.getTeamNames().removeIf(teamName -> !teamNameRegistry.mayExist(teamName));
+                if (normalized.getTeamNames().isEmpty()) {
+                    return impossible(normalized, "unknown_team");
+                }
+            }
+        }
+
+        return new NormalizedSearch(normalized, null);
+    }
+
+    /**
+     * 모순인 조건으로 생략한 DB 쿼리 수 기록 (목록 조회 1, 페이지 조회는 content + count 2)
+     */
+    public void recordSkipped(NormalizedSearch search, int queries) {
+        Counter.builder("member.search.short_circuit.queries")
+                .description("모순인 검색 조건이라 실행하지 않은 DB 쿼리 수")
+                .tag("reason", search.getImpossibleReason())
+                .register(meterRegistry)
+                .increment(queries);
+    }
+
+    private NormalizedSearch impossible(MemberSearchCondition condition, String reason) {
+        return new NormalizedSearch(condition, reason);
+    }
+
+    private static String trim(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+
+    private static List<String> trim(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String value : values) {
+            String trimmed = trim(value);
+            if (trimmed != null) {
+                result.add(trimmed);
+            }
+        }
+        return result.isEmpty() ? null : new ArrayList<>(result);
+    }
+
+    private static List<Long> distinct(List<Long> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<Long> result = new LinkedHashSet<>();
+        for (Long value : values) {
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result.isEmpty() ? null : new ArrayList<>(result);
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+/**
+ * member_search_view 를 Member/Team 변경과 같은 트랜잭션에서 갱신
+ * 이벤트는 Hibernate flush 중에 발행되고, JdbcTemplate 은 JpaTransactionManager 가 바인딩한 같은 커넥션을 사용하므로
+ * 원본 변경이 롤백되면 읽기 모델 변경도 함께 롤백된다.
+ *
+ * 읽기 모델을 켠 경우(member.search.view.enabled)에만 갱신하고, 켜고 기동하면 MemberSearchViewRebuilder 가 전체를 채운다.
+ * JPQL 벌크 연산, JDBC 로 직접 넣은 데이터는 이벤트가 없으므로 MemberSearchViewRebuilder 로 다시 만들어야 한다.
+ */
+@Component
+public class MemberSearchViewMaintainer {
+
+    // 팀 이름은 이벤트에 없을 수 있으므로 (초기화되지 않은 프록시) team 테이블에서 읽음
+    private static final String INSERT = "insert into member_search_view (member_id, username, age, team_id, team_name) "
+            + "values (?, ?, ?, ?, (select t.name from team t where t.id = ?))";
+    private static final String UPDATE = "update member_search_view set username = ?, age = ?, team_id = ?, "
+            + "team_name = (select t.name from team t where t.id = ?) where member_id = ?";
+    private static final String DELETE = "delete from member_search_view where member_id = ?";
+    private static final String RENAME_TEAM = "update member_search_view set team_name = ? where team_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public MemberSearchViewMaintainer(JdbcTemplate jdbcTemplate, @Value("${member.search.view.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        MemberState after = event.getAfter();
+        switch (event.getType()) {
+            case INSERT:
+                jdbcTemplate.update(INSERT, after.getId(), after.getUsername(), after.getAge(), after.getTeamId(), after.getTeamId());
+                break;
+            case UPDATE:
+                int updated = jdbcTemplate.update(UPDATE, after.getUsername(), after.getAge(), after.getTeamId(), after.getTeamId(), after.getId());
+                if (updated == 0) { // 재생성 전에 만들어진 회원
+                    jdbcTemplate.update(INSERT, after.getId(), after.getUsername(), after.getAge(), after.getTeamId(), after.getTeamId());
+                }
+                break;
+            case DELETE:
+                jdbcTemplate.update(DELETE, event.getMemberId());
+                break;
+        }
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (enabled && event.getType() == EntityChangeType.UPDATE && event.isRenamed()) {
+            jdbcTemplate.update(RENAME_TEAM, event.getAfterName(), event.getTeamId());
+        }
+    }
+}
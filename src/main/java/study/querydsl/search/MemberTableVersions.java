@@ -0,0 +1,65 @@
+package study.querydsl.search;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member/Team 테이블 버전 카운터 (커밋된 변경마다 증가)
+ * 검색 응답의 ETag 를 "버전 + 검색 키" 로 만들어서 변경이 없으면 DB 조회 없이 304 로 응답하기 위함
+ *
+ * 버전은 MemberSearchCache 가 캐시를 무효화한 다음에 올린다. (먼저 올리면 새 ETag 에 무효화 전 캐시 결과가 붙을 수 있음)
+ *
+ * 주의
+ * * 카운터는 인스턴스 메모리에 있으므로 단일 인스턴스 기준 (여러 인스턴스면 DB 기반 버전 필요)
+ * * JPQL 벌크 연산은 이벤트가 발행되지 않으므로 MemberSearchCache.invalidateAll() 을 직접 호출해야 함
+ */
+@Component
+public class MemberTableVersions {
+
+    private final MemberSearchNormalizer searchNormalizer;
+
+    // 재시작 후 같은 버전 번호가 다른 데이터를 가리키지 않도록 기동할 때마다 다른 값 사용
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong memberVersion = new AtomicLong();
+    private final AtomicLong teamVersion = new AtomicLong();
+
+    public MemberTableVersions(MemberSearchNormalizer searchNormalizer) {
+        this.searchNormalizer = searchNormalizer;
+    }
+
+    void memberChanged() {
+        memberVersion.incrementAndGet();
+    }
+
+    void teamChanged() {
+        teamVersion.incrementAndGet();
+    }
+
+    void bump() {
+        memberVersion.incrementAndGet();
+        teamVersion.incrementAndGet();
+    }
+
+    /**
+     * 버전은 조회 전에 읽어야 한다. (조회 후에 읽으면 변경 전 데이터에 새 버전이 붙을 수 있음)
+     * 키는 캐시와 같이 정규화한 조건으로 만든다.
+     */
+    public String etag(String endpoint, MemberSearchCondition condition) {
+        return etag(endpoint, MemberSearchKey.of(searchNormalizer.normalize(condition).getCondition()));
+    }
+
+    public String etag(String endpoint, MemberSearchCondition condition, Pageable pageable) {
+        return etag(endpoint, MemberSearchKey.of(searchNormalizer.normalize(condition).getCondition(), pageable));
+    }
+
+    private String etag(String endpoint, MemberSearchKey key) {
+        String source = epoch + ":" + memberVersion.get() + ":" + teamVersion.get() + ":" + endpoint + ":" + key;
+        return DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
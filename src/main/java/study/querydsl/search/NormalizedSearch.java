@@ -0,0 +1,19 @@
+package study.querydsl.search;
+
+import lombok.Value;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * MemberSearchNormalizer 결과
+ * impossibleReason 이 있으면 결과가 항상 비어 있는 조건이므로 DB 조회 없이 빈 결과로 응답한다.
+ */
+@Value
+public class NormalizedSearch {
+
+    MemberSearchCondition condition;
+    String impossibleReason;
+
+    public boolean isImpossible() {
+        return impossibleReason != null;
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/searchcoalescing : 키별 single-flight 통계
+ * 인증 없이 노출되므로 검색 값은 빼고 조건 모양과 페이징만 보여줌 (SearchSingleFlight.KeyStatsView)
+ */
+@Component
+@Endpoint(id = "searchcoalescing")
+@RequiredArgsConstructor
+public class SearchCoalescingEndpoint {
+
+    private final SearchSingleFlight searchSingleFlight;
+
+    @ReadOperation
+    public List<SearchSingleFlight.KeyStatsView> topKeys() {
+        return searchSingleFlight.topKeys(50);
+    }
+}
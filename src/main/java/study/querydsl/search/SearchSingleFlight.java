@@ -0,0 +1,199 @@
+package study.querydsl.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.monitoring.StatementBudgetExceededException;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 같은 키(검색 조건 + 페이징)로 동시에 들어온 검색을 하나의 DB 실행으로 합침 (single-flight)
+ * * 먼저 들어온 호출(leader)만 실제로 조회하고, 나머지(follower)는 그 결과를 공유
+ * * follower 는 최대 max-wait 까지만 기다리고, 넘으면 직접 조회한다
+ * * leader 가 실패하면 기다리던 follower 에게도 같은 예외를 전달 (DB 장애 등에서 같은 조회를 반복하지 않도록)
+ * * 단 leader 요청에만 해당하는 실패(SQL 수 예산 초과, 요청 스레드 인터럽트)는 넘기지 않고 follower 가 다시 합류해서 직접 조회
+ *
+ * 캐시 만료 직후 인기 조건으로 요청이 몰리는 경우(stampede)를 막기 위함
+ */
+@Component
+public class SearchSingleFlight {
+
+    // leader 가 자기 요청에만 해당하는 이유로 실패했음을 follower 에게 알리는 값
+    private static final Object RETRY = new Object();
+
+    private final ConcurrentHashMap<MemberSearchKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MemberSearchKey, KeyStats> keyStats = new ConcurrentHashMap<>();
+    private final AtomicLong keyIds = new AtomicLong();
+
+    private final long maxWaitMillis;
+    private final int maxTrackedKeys;
+
+    private final Counter executions;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SearchSingleFlight(MeterRegistry meterRegistry,
+                              @Value("${member.search.coalescing.max-wait-ms:2000}") long maxWaitMillis,
+                              @Value("${member.search.coalescing.max-tracked-keys:1000}") int maxTrackedKeys) {
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.executions = meterRegistry.counter("member.search.coalescing", "result", "executed");
+        this.coalesced = meterRegistry.counter("member.search.coalescing", "result", "coalesced");
+        this.timeouts = meterRegistry.counter("member.search.coalescing", "result", "timeout");
+        meterRegistry.gaugeMapSize("member.search.coalescing.in_flight", Tags.empty(), inFlight);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(MemberSearchKey key, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing == null) {
+            executions.increment();
+            stats(key).executions.increment();
+            try {
+                T result = loader.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                if (requestScoped(e)) {
+                    inFlight.remove(key, flight); // 다시 합류하는 follower 가 끝난 flight 를 보지 않도록 먼저 제거
+                    flight.complete(RETRY);
+                } else {
+                    flight.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        coalesced.increment();
+        stats(key).coalesced.increment();
+        Object result;
+        try {
+            result = existing.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            stats(key).timeouts.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for in-flight search", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        if (result == RETRY) {
+            return execute(key, loader); // 다음 leader 에 합류하거나 직접 leader 가 됨
+        }
+        return (T) result;
+    }
+
+    // leader 요청의 예산(StatementCounter)이나 취소 때문에 난 실패, 같은 조회라도 다른 요청에서는 성공할 수 있다
+    private static boolean requestScoped(RuntimeException e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StatementBudgetExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private KeyStats stats(MemberSearchKey key) {
+        KeyStats stats = keyStats.get(key);
+        if (stats == null) {
+            evictIfFull();
+            stats = keyStats.computeIfAbsent(key, k -> new KeyStats(keyIds.incrementAndGet()));
+        }
+        stats.lastSeenNanos = System.nanoTime();
+        return stats;
+    }
+
+    // 키 종류가 무한히 늘어나지 않도록 제한, 넘으면 가장 오래 전에 본 키부터 제거
+    private void evictIfFull() {
+        while (!keyStats.isEmpty() && keyStats.size() >= maxTrackedKeys) {
+            keyStats.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastSeenNanos))
+                    .ifPresent(oldest -> keyStats.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    /**
+     * 합쳐진 호출이 많은 순서로 키별 통계
+     * 키의 값(username, 팀 이름 등)은 개인 정보이므로 조건 모양과 페이징, 집계 중에만 유지되는 번호로만 보여준다.
+     */
+    public List<KeyStatsView> topKeys(int limit) {
+        return keyStats.entrySet().stream()
+                .map(entry -> new KeyStatsView(entry.getKey(), entry.getValue().id,
+                        entry.getValue().executions.sum(),
+                        entry.getValue().coalesced.sum(),
+                        entry.getValue().timeouts.sum()))
+                .sorted(Comparator.comparingLong(KeyStatsView::getCoalesced).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    static class KeyStats {
+        final long id;
+        final LongAdder executions = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        volatile long lastSeenNanos;
+
+        KeyStats(long id) {
+            this.id = id;
+        }
+    }
+
+    @Getter
+    public static class KeyStatsView {
+        @Getter(AccessLevel.NONE)
+        private final MemberSearchKey key; // 응답에 넣지 않음, 같은 패키지(테스트)에서 key() 로만 확인
+        private final long id;
+        private final String shape;
+        private final boolean paged;
+        private final int page;
+        private final int size;
+        private final long executions;
+        private final long coalesced;
+        private final long timeouts;
+
+        KeyStatsView(MemberSearchKey key, long id, long executions, long coalesced, long timeouts) {
+            this.key = key;
+            this.id = id;
+            this.shape = key.shape();
+            this.paged = key.isPaged();
+            this.page = key.getPage();
+            this.size = key.getSize();
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.timeouts = timeouts;
+        }
+
+        MemberSearchKey key() {
+            return key;
+        }
+    }
+}
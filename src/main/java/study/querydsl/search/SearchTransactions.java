@@ -0,0 +1,18 @@
+package study.querydsl.search;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 검색 결과를 캐시나 인메모리 구조로 대신 답해도 되는지 판단
+ * 쓰기 트랜잭션 안에서는 아직 flush/commit 되지 않은 변경이 있을 수 있으므로 항상 DB 로 간다.
+ */
+public abstract class SearchTransactions {
+
+    private SearchTransactions() {
+    }
+
+    public static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
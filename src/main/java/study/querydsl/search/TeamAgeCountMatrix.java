@@ -0,0 +1,313 @@
+package study.querydsl.search;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * (team_id, age) 별 회원 수 행렬, 팀/나이 조건 페이지 검색의 전체 건수를 count(*) 대신 합계로 계산
+ * * 팀 id (팀이 없으면 null) → 나이 → 회원 수
+ * * teamName → 팀 id 목록 (팀 이름은 유일하지 않음)
+ * * 기동 완료 시 member group by team_id, age 로 채우고, 커밋된 MemberChangedEvent/TeamChangedEvent 로 증감
+ *
+ * 건수는 증감으로 유지하므로 어느 변경이 로드 결과에 포함됐는지 알 수 없는 경우(로드 중 변경, 변경 전 상태를 모르는 수정)에는
+ * 사용하지 않고(null 반환) 다시 로드한다.
+ * 커밋 이벤트는 DB 커밋보다 늦게 오므로, 로드 결과를 넣을 때 발행됐지만 아직 완료되지 않은 트랜잭션(committing)이 있어도 다시 로드한다.
+ * (로드 쿼리 전에 커밋되고 이벤트는 넣은 후에 오면 로드 결과와 이벤트에서 두 번 세어짐)
+ * username 조건, 쓰기 트랜잭션, 로드 전에는 null 을 반환해서 count 쿼리로 조회하게 한다.
+ *
+ * 이 인스턴스의 커밋 이벤트로만 증감하므로 다른 인스턴스의 변경, JPQL 벌크 연산이나 JDBC 로 직접 바꾼 데이터는 반영되지 않는다.
+ * 그래서 기본값은 꺼짐(member.search.count-matrix.enabled)이고, 켜면 member.search.count-matrix.reconcile-cron 주기로 다시 로드해서
+ * 증감으로 유지한 값과 다른 팀 수를 member.search.count_matrix.drift 로 기록한다.
+ * 로드 중 변경으로 MAX_RELOAD_ATTEMPTS 번 모두 실패하면 이전 행렬(있으면)을 그대로 쓰고 다음 주기에 다시 시도한다.
+ */
+@Slf4j
+@Component
+public class TeamAgeCountMatrix {
+
+    private static final int MAX_RELOAD_ATTEMPTS = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, TreeMap<Integer, Long>> counts = new HashMap<>();
+    private final TeamIdsByName teamIdsByName = new TeamIdsByName();
+    private final LoadingChanges loadingChanges = new LoadingChanges();
+    // flush 때 발행됐고 트랜잭션이 아직 끝나지 않은 이벤트 (같은 값의 이벤트도 따로 세도록 동일성 비교)
+    private final Set<MemberChangedEvent> committing = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile boolean loaded;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter drift;
+
+    public TeamAgeCountMatrix(JPAQueryFactory queryFactory,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${member.search.count-matrix.enabled:false}") boolean enabled) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.hits = meterRegistry.counter("member.search.count_matrix", "result", "hit");
+        this.misses = meterRegistry.counter("member.search.count_matrix", "result", "miss");
+        this.drift = meterRegistry.counter("member.search.count_matrix.drift");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${member.search.count-matrix.reconcile-cron:0 */10 * * * *}")
+    public void load() {
+        if (!enabled || !reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+                lock.writeLock().lock();
+                try {
+                    loadingChanges.begin();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                List<Tuple> teams = readOnlyTransaction.execute(status -> queryFactory
+                        .select(team.id, team.name)
+                        .from(team)
+                        .fetch());
+                NumberExpression<Long> memberCount = member.count();
+                List<Tuple> cells = readOnlyTransaction.execute(status -> queryFactory
+                        .select(member.team.id, member.age, memberCount)
+                        .from(member)
+                        .groupBy(member.team.id, member.age)
+                        .fetch());
+
+                lock.writeLock().lock();
+                try {
+                    if (loadingChanges.changed() || !committing.isEmpty()) {
+                        continue; // 로드 중에 커밋됐거나 커밋 중인 변경이 있으면 결과에 포함됐는지 알 수 없으므로 다시
+                    }
+                    Map<Long, TreeMap<Integer, Long>> fresh = new HashMap<>();
+                    for (Tuple row : cells) {
+                        fresh.computeIfAbsent(row.get(member.team.id), t -> new TreeMap<>())
+                                .put(row.get(member.age), row.get(memberCount));
+                    }
+                    if (loaded) {
+                        int drifted = drift(fresh);
+                        if (drifted > 0) {
+                            drift.increment(drifted);
+                            log.warn("team/age count matrix reconciled: {} teams drifted from the database", drifted);
+                        }
+                    }
+                    counts.clear();
+                    counts.putAll(fresh);
+                    teamIdsByName.clear();
+                    for (Tuple row : teams) {
+                        teamIdsByName.put(row.get(team.id), row.get(team.name));
+                    }
+                    loadingChanges.end();
+                    loaded = true;
+                    log.info("team/age count matrix loaded: {} teams, {} cells", counts.size(), cells.size());
+                    return;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                loadingChanges.end();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("team/age count matrix not reloaded: changed during {} attempts, retrying at the next reconcile", MAX_RELOAD_ATTEMPTS);
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    /**
+     * flush 시점(커밋 전)에 커밋 중인 변경으로 기록, 트랜잭션이 끝나면(onMemberCompleted) 지움
+     */
+    @EventListener
+    public void onMemberWritten(MemberChangedEvent event) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            committing.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 커밋이면 onMemberChanged (AFTER_COMMIT) 로 반영한 다음에 호출됨
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onMemberCompleted(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            committing.remove(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            loadingChanges.memberChanged(event.getMemberId());
+            if (!loaded) {
+                return;
+            }
+            MemberState before = event.getBefore();
+            if (event.getType() == EntityChangeType.UPDATE && before == null) {
+                loaded = false;
+                CompletableFuture.runAsync(this::load);
+                return;
+            }
+            if (event.getType() != EntityChangeType.INSERT) {
+                add(before.getTeamId(), before.getAge(), -1);
+            }
+            if (event.getType() != EntityChangeType.DELETE) {
+                add(event.getAfter().getTeamId(), event.getAfter().getAge(), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            loadingChanges.teamChanged(event.getTeamId());
+            teamIdsByName.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 팀/나이 조건의 전체 건수, 행렬로 계산할 수 없으면 null
+     */
+    public Long count(MemberSearchCondition condition) {
+        if (!loaded || SearchTransactions.inWriteTransaction() || !supports(condition)) {
+            if (enabled) {
+                misses.increment();
+            }
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                misses.increment();
+                return null;
+            }
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            long total = 0;
+            if (from <= to) {
+                for (Long teamId : teamKeys(condition)) {
+                    TreeMap<Integer, Long> ages = counts.get(teamId);
+                    if (ages != null) {
+                        for (long count : ages.subMap(from, true, to, true).values()) {
+                            total += count;
+                        }
+                    }
+                }
+            }
+            hits.increment();
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean supports(MemberSearchCondition condition) {
+        return condition.getUsername() == null
+                && (condition.getUsernames() == null || condition.getUsernames().isEmpty())
+                && condition.getUsernameStartsWith() == null
+                && condition.getUsernameContains() == null;
+    }
+
+    // 아래는 lock 안에서 호출
+
+    /**
+     * 팀 조건(teamName, teamNames, teamIds) 을 모두 만족하는 팀 id, 팀 조건이 없으면 팀 없는 회원(null) 포함 전체
+     */
+    private Collection<Long> teamKeys(MemberSearchCondition condition) {
+        Set<Long> keys = teamIdsByName.resolve(condition);
+        return keys != null ? keys : counts.keySet();
+    }
+
+    /**
+     * 증감으로 유지한 값과 다시 로드한 값이 다른 팀 수
+     */
+    private int drift(Map<Long, TreeMap<Integer, Long>> fresh) {
+        Set<Long> teamIds = new HashSet<>(counts.keySet());
+        teamIds.addAll(fresh.keySet());
+        int drifted = 0;
+        for (Long teamId : teamIds) {
+            Map<Integer, Long> current = counts.getOrDefault(teamId, new TreeMap<>());
+            if (!current.equals(fresh.getOrDefault(teamId, new TreeMap<>()))) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+
+    private void add(Long teamId, int age, long delta) {
+        TreeMap<Integer, Long> ages = counts.computeIfAbsent(teamId, t -> new TreeMap<>());
+        long count = ages.getOrDefault(age, 0L) + delta;
+        if (count > 0) {
+            ages.put(age, count);
+        } else {
+            ages.remove(age);
+        }
+    }
+}
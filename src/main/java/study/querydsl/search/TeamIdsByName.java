@@ -0,0 +1,83 @@
+package study.querydsl.search;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 인메모리 검색 구조(MemberBitmapIndex, TeamAgeCountMatrix)가 teamName 조건을 팀 id 로 바꾸기 위한 teamName → 팀 id 목록
+ * 팀 이름은 유일하지 않으므로 이름 하나에 팀 id 여러 개
+ *
+ * 스레드 안전하지 않음, 소유 객체의 lock 안에서 호출
+ */
+class TeamIdsByName {
+
+    private final Map<String, Set<Long>> teamIds = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+
+    void put(Long teamId, String name) {
+        remove(teamId); // 이름이 바뀐 팀이면 이전 이름에서 빼고 넣음
+        if (name != null) {
+            names.put(teamId, name);
+            teamIds.computeIfAbsent(name, n -> new HashSet<>()).add(teamId);
+        }
+    }
+
+    void remove(Long teamId) {
+        String name = names.remove(teamId);
+        if (name != null) {
+            Set<Long> ids = teamIds.get(name);
+            ids.remove(teamId);
+            if (ids.isEmpty()) {
+                teamIds.remove(name);
+            }
+        }
+    }
+
+    void apply(TeamChangedEvent event) {
+        remove(event.getTeamId());
+        if (event.getType() != EntityChangeType.DELETE) {
+            put(event.getTeamId(), event.getAfterName());
+        }
+    }
+
+    void clear() {
+        teamIds.clear();
+        names.clear();
+    }
+
+    /**
+     * 팀 조건(teamName, teamNames, teamIds) 을 모두 만족하는 팀 id, 팀 조건이 없으면 null
+     */
+    Set<Long> resolve(MemberSearchCondition condition) {
+        Set<Long> keys = null;
+        if (condition.getTeamName() != null) {
+            keys = new HashSet<>(teamIds.getOrDefault(condition.getTeamName(), Collections.emptySet()));
+        }
+        if (condition.getTeamNames() != null && !condition.getTeamNames().isEmpty()) {
+            Set<Long> ids = new HashSet<>();
+            for (String teamName : condition.getTeamNames()) {
+                ids.addAll(teamIds.getOrDefault(teamName, Collections.emptySet()));
+            }
+            keys = intersect(keys, ids);
+        }
+        if (condition.getTeamIds() != null && !condition.getTeamIds().isEmpty()) {
+            keys = intersect(keys, new HashSet<>(condition.getTeamIds()));
+        }
+        return keys;
+    }
+
+    private static Set<Long> intersect(Set<Long> keys, Set<Long> ids) {
+        if (keys == null) {
+            return ids;
+        }
+        keys.retainAll(ids);
+        return keys;
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋된 팀 이름 목록 (이름 → 팀 수), 존재하지 않는 teamName 검색을 DB 조회 없이 걸러내기 위함
+ * * 기동 완료 시 team 테이블에서 읽고, 이후에는 커밋된 TeamChangedEvent 로 갱신
+ * * 팀 이름은 유일하지 않으므로 같은 이름의 팀 수를 센다
+ *
+ * 틀리더라도 "있는 이름을 없다고" 판단하지 않는 쪽으로 유지한다. (로딩과 이벤트가 겹쳐서 수가 많아지는 건 허용)
+ * reload() 는 새 맵을 만들어서 교체하므로 다시 불러도 수가 쌓이지 않고, 만드는 동안의 변경은 새 맵에도 반영한다. (UsernameBloomFilter 와 같은 방식)
+ * 기동 시 로드 이전(ApplicationRunner 의 스냅샷 로드 포함)의 변경은 로드에 포함되고,
+ * JPQL 벌크 연산이나 JDBC 로 직접 넣은 팀은 이벤트가 없으므로 reload() 를 호출해야 한다.
+ */
+@Slf4j
+@Component
+public class TeamNameRegistry {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile ConcurrentHashMap<String, Integer> teamCounts = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, Integer> building; // 다시 만드는 중인 맵, 그동안의 변경도 함께 반영
+    private volatile boolean loaded;
+
+    public TeamNameRegistry(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        ConcurrentHashMap<String, Integer> next = new ConcurrentHashMap<>();
+        building = next;
+
+        List<String> names = readOnlyTransaction.execute(status -> queryFactory
+                .select(team.name)
+                .from(team)
+                .fetch());
+        for (String name : names) {
+            if (name != null) {
+                next.merge(name, 1, Integer::sum);
+            }
+        }
+
+        teamCounts = next;
+        building = null;
+        loaded = true;
+        log.info("team name registry loaded: {} names", next.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (event.getType() == EntityChangeType.UPDATE && !event.isRenamed()) {
+            return;
+        }
+        // building 을 먼저 읽어야 함 (UsernameBloomFilter.onMemberChanged 와 같은 이유)
+        ConcurrentHashMap<String, Integer> next = building;
+        apply(teamCounts, event);
+        if (next != null) {
+            apply(next, event);
+        }
+    }
+
+    private static void apply(ConcurrentHashMap<String, Integer> counts, TeamChangedEvent event) {
+        if (event.getType() != EntityChangeType.INSERT && event.getBeforeName() != null) {
+            // 로드 전에 들어온 삭제는 없는 이름일 수 있음, 0 이하가 되면 제거
+            counts.computeIfPresent(event.getBeforeName(), (name, count) -> count > 1 ? count - 1 : null);
+        }
+        if (event.getType() != EntityChangeType.DELETE && event.getAfterName() != null) {
+            counts.merge(event.getAfterName(), 1, Integer::sum);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 로드가 끝나지 않았으면 항상 true (알 수 없음)
+     */
+    public boolean mayExist(String teamName) {
+        return !loaded || teamCounts.containsKey(teamName);
+    }
+}
@@ -0,0 +1,196 @@
+package study.querydsl.search;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 존재하는 username 의 Bloom filter, 없는 username 조회를 DB 없이 빈 결과로 처리하기 위함
+ * * 기동 완료 시 member 테이블을 스트리밍으로 읽어서 만들고, 이후 커밋된 MemberChangedEvent 로 추가
+ * * 삭제/이름 변경 전 username 은 지울 수 없으므로 남아 있다가 다시 만들 때 정리됨
+ * * 추가된 수가 예상 개수를 넘으면 두 배 크기로 다시 만든다 (오탐률 유지)
+ *
+ * mightContain 이 false 를 줄 수 있는 경우는 로드가 끝났고 쓰기 트랜잭션 밖일 때뿐이다. (SearchTransactions)
+ * 이 인스턴스의 커밋 이벤트로만 추가되므로 다른 인스턴스에서 추가한 회원, JPQL 벌크 연산이나 JDBC 로 직접 넣은 회원은
+ * 다시 만들기 전까지 "확실히 없음" (false negative) 으로 판단되어 검색에서 빠진다. 이런 경우 rebuild() 를 호출해야 한다.
+ * 오탐률은 member.search.username_bloom 메트릭으로 확인
+ * * result=negative : DB 조회 생략
+ * * result=positive / false_positive : 있을 수도 있다고 해서 조회했는데 실제로 없었던 비율이 오탐률
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final double fpp;
+
+    private volatile BloomFilter filter; // 로드 전에는 null
+    private volatile BloomFilter building; // 다시 만드는 중인 필터, 그동안의 변경도 함께 반영
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile long expectedInsertions;
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    public UsernameBloomFilter(JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${member.search.username-bloom.enabled:true}") boolean enabled,
+                               @Value("${member.search.username-bloom.expected-insertions:100000}") long expectedInsertions,
+                               @Value("${member.search.username-bloom.fpp:0.01}") double fpp) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+
+        this.negatives = meterRegistry.counter("member.search.username_bloom", "result", "negative");
+        this.positives = meterRegistry.counter("member.search.username_bloom", "result", "positive");
+        this.falsePositives = meterRegistry.counter("member.search.username_bloom", "result", "false_positive");
+        Gauge.builder("member.search.username_bloom.fpp", this, UsernameBloomFilter::observedFpp)
+                .tag("kind", "observed")
+                .register(meterRegistry);
+        Gauge.builder("member.search.username_bloom.fpp", this, UsernameBloomFilter::expectedFpp)
+                .tag("kind", "expected")
+                .register(meterRegistry);
+        Gauge.builder("member.search.username_bloom.fpp", this, bloom -> bloom.fpp)
+                .tag("kind", "configured")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long expected = Math.max(expectedInsertions, insertions.get() * 2);
+        BloomFilter next = new BloomFilter(expected, fpp);
+        building = next;
+
+        long count = readOnlyTransaction.execute(status -> {
+            long rows = 0;
+            try (CloseableIterator<String> usernames = queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .iterate()) {
+                while (usernames.hasNext()) {
+                    String username = usernames.next();
+                    if (username != null) {
+                        next.put(username);
+                    }
+                    rows++;
+                }
+            }
+            return rows;
+        });
+
+        insertions.set(count);
+        expectedInsertions = expected;
+        filter = next;
+        building = null;
+        log.info("username bloom filter built: {} usernames, expected insertions {}, fpp {}", count, expected, fpp);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.getType() == EntityChangeType.DELETE || event.getAfter() == null) {
+            return;
+        }
+        String username = event.getAfter().getUsername();
+        if (username == null) {
+            return;
+        }
+        // building 을 먼저 읽어야 함
+        // filter 를 먼저 읽으면 그 사이 rebuild 가 끝나서 (filter 교체, building = null) 버려질 이전 필터에만 넣게 됨
+        // building 이 null 이었다면 이후 시작된 rebuild 의 스캔은 이미 커밋된 이 username 을 읽는다
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(username);
+        }
+        if (next != null) {
+            next.put(username);
+        }
+        // 커밋 후 호출되는 요청 스레드에서 전체 스캔을 하지 않도록 별도 스레드에서 한 번만
+        if (current != null && insertions.incrementAndGet() > current.getExpectedInsertions()
+                && rebuildScheduled.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            }).exceptionally(e -> {
+                log.warn("username bloom filter rebuild failed", e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * false 면 해당 username 의 회원이 확실히 없음 (조회 생략 가능)
+     */
+    public boolean mightContain(String username) {
+        BloomFilter current = filter;
+        return username == null || current == null || SearchTransactions.inWriteTransaction() || current.mightContain(username);
+    }
+
+    /**
+     * username 단건 조회 전에 호출, true 면 조회를 생략하고 생략한 수를 기록
+     * (검색 조건의 username 은 MemberSearchNormalizer 가 mightContain 으로 확인하고 short_circuit 메트릭으로 기록)
+     */
+    public boolean skipLookup(String username) {
+        if (mightContain(username)) {
+            return false;
+        }
+        negatives.increment();
+        return true;
+    }
+
+    /**
+     * mightContain 이 true 라서 조회한 결과를 기록 (오탐률 계산용)
+     */
+    public void recordLookup(boolean found) {
+        if (filter == null || SearchTransactions.inWriteTransaction()) {
+            return;
+        }
+        positives.increment();
+        if (!found) {
+            falsePositives.increment();
+        }
+    }
+
+    private double observedFpp() {
+        double checked = positives.count();
+        return checked == 0 ? 0 : falsePositives.count() / checked;
+    }
+
+    private double expectedFpp() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFpp();
+    }
+}
@@ -0,0 +1,274 @@
+package study.querydsl.search;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 부분 문자열(contains)/접두사(startsWith) 검색용 인메모리 trigram 인덱스 (trigram → 정렬된 member id 목록)
+ * * 앞에 PAD 두 글자를 붙여서 인덱싱하므로 접두사는 1 글자부터, contains 는 3 글자부터 인덱스로 처리
+ * * 가장 짧은 목록부터 교집합을 구하고, 후보는 id → username 으로 실제 일치 여부를 확인 (trigram 은 순서를 보장하지 않으므로)
+ * * 결과가 max-ids 를 넘거나 인덱스로 처리할 수 없으면 null, 이 경우 DB like 로 조회한다
+ *
+ * 기동 완료 시 member 테이블을 스트리밍으로 읽어서 만들고, 이후 커밋된 MemberChangedEvent 로 갱신
+ * 로드 중에 들어온 변경은 이벤트 쪽이 최신이므로 로드에서 해당 id 는 건너뛴다.
+ * 메모리 : username 당 (글자 수 + 2) 개의 trigram 항목(long) + id → username 맵
+ * 쓰기 트랜잭션 안에서는 사용하지 않는다. (SearchTransactions)
+ */
+@Slf4j
+@Component
+public class UsernameNgramIndex {
+
+    private static final int GRAM = 3;
+    private static final String PAD = "\u0002\u0002";
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int maxIds;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, String> usernames = new HashMap<>();
+    private final LoadingChanges loadingChanges = new LoadingChanges();
+    private volatile boolean loaded;
+
+    public UsernameNgramIndex(JPAQueryFactory queryFactory,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${member.search.username-index.enabled:true}") boolean enabled,
+                              @Value("${member.search.username-index.max-ids:10000}") int maxIds) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long count = readOnlyTransaction.execute(status -> {
+            long rows = 0;
+            try (CloseableIterator<Tuple> members = queryFactory
+                    .select(member.id, member.username)
+                    .from(member)
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .iterate()) {
+                while (members.hasNext()) {
+                    Tuple row = members.next();
+                    Long id = row.get(member.id);
+                    String username = row.get(member.username);
+                    lock.writeLock().lock();
+                    try {
+                        if (!loadingChanges.skip(id)) {
+                            put(id, username);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    rows++;
+                }
+            }
+            return rows;
+        });
+
+        lock.writeLock().lock();
+        try {
+            loadingChanges.end();
+            loaded = true;
+            log.info("username ngram index loaded: {} members, {} grams", count, postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Long id = event.getMemberId();
+            loadingChanges.memberChanged(id);
+            remove(id);
+            if (event.getType() != EntityChangeType.DELETE) {
+                put(id, event.getAfter().getUsername());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * prefix 로 시작하고 substring 을 포함하는 username 의 member id (오름차순)
+     * 인덱스로 처리할 수 없거나 결과가 max-ids 를 넘으면 null
+     */
+    public List<Long> findIds(String prefix, String substring) {
+        boolean hasPrefix = StringUtils.hasLength(prefix);
+        boolean hasSubstring = StringUtils.hasLength(substring);
+        if (!loaded || SearchTransactions.inWriteTransaction() || (!hasPrefix && !hasSubstring)) {
+            return null;
+        }
+
+        Set<String> grams = new LinkedHashSet<>();
+        if (hasPrefix) {
+            String padded = PAD + prefix;
+            for (int i = 0; i + GRAM <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + GRAM));
+            }
+        }
+        if (hasSubstring) {
+            for (int i = 0; i + GRAM <= substring.length(); i++) {
+                grams.add(substring.substring(i, i + GRAM));
+            }
+        }
+        if (grams.isEmpty()) {
+            return null; // 3 글자 미만 contains 만 있는 경우
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            List<Long> result = new ArrayList<>();
+            Postings smallest = lists.get(0);
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                long id = smallest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) {
+                        continue candidates;
+                    }
+                }
+                String username = usernames.get(id);
+                if ((hasPrefix && !username.startsWith(prefix)) || (hasSubstring && !username.contains(substring))) {
+                    continue;
+                }
+                if (result.size() == maxIds) {
+                    return null;
+                }
+                result.add(id);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // 아래는 write lock 안에서 호출
+
+    private void put(Long id, String username) {
+        if (username == null) {
+            return;
+        }
+        usernames.put(id, username);
+        for (String gram : grams(username)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        String username = usernames.remove(id);
+        if (username == null) {
+            return;
+        }
+        for (String gram : grams(username)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String username) {
+        String padded = PAD + username;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * 정렬된 long 배열, id 는 보통 증가하는 순서로 들어오므로 뒤에 붙이는 경우가 대부분
+     */
+    private static class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insert(-index - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void insert(int index, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import java.util.Objects;
+
+/**
+ * team_stats 를 Member/Team 변경과 같은 트랜잭션에서 변경분(delta)만 반영
+ * * 회원 추가 : count + 1, sum + age, min/max 는 least/greatest
+ * * 회원 제거 : count - 1, sum - age, 빠진 나이가 min/max 였으면 그 팀의 member 에서 다시 계산 (이미 삭제/변경된 후라 남은 회원 기준)
+ * * 수정 : 이전 팀에서 제거 + 새 팀에 추가
+ *
+ * 이벤트는 Hibernate flush 중에 SQL 실행 직후 발행되고, JdbcTemplate 은 같은 트랜잭션의 커넥션을 사용한다. (MemberSearchViewMaintainer 와 같음)
+ * 변경 전 상태를 모르는 수정은 변경분을 알 수 없으므로 영향받은 팀만 다시 계산한다. (TeamStatsReconciliation)
+ * * 새 팀 : 그 팀 행만 재계산
+ * * 이전 팀 : 알 수 없지만, 소속이 바뀌었다면 회원 수가 실제보다 하나 많으므로 회원 수가 다른 팀만 재계산
+ * JPQL 벌크 연산은 이벤트가 없으므로 TeamStatsReconcileJob 의 주기적 재계산으로 보정된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsMaintainer {
+
+    private static final String ADD = "update team_stats set member_count = member_count + 1, age_sum = age_sum + ?, "
+            + "min_age = case when min_age is null or min_age > ? then ? else min_age end, "
+            + "max_age = case when max_age is null or max_age < ? then ? else max_age end "
+            + "where team_id = ?";
+    private static final String REMOVE = "update team_stats set member_count = member_count - 1, age_sum = age_sum - ?, "
+            + "min_age = case when min_age = ? then (select min(m.age) from member m where m.team_id = ?) else min_age end, "
+            + "max_age = case when max_age = ? then (select max(m.age) from member m where m.team_id = ?) else max_age end "
+            + "where team_id = ?";
+    private static final String INSERT_TEAM = "insert into team_stats (team_id, member_count, age_sum, min_age, max_age) "
+            + "values (?, 0, 0, null, null)";
+    private static final String DELETE_TEAM = "delete from team_stats where team_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamStatsReconciliation reconciliation;
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        MemberState before = event.getBefore();
+        MemberState after = event.getAfter();
+        if (event.getType() == EntityChangeType.UPDATE) {
+            if (before == null) {
+                if (after.hasTeam()) {
+                    reconciliation.recalculate(after.getTeamId());
+                }
+                reconciliation.recalculateMiscounted();
+                return;
+            }
+            if (before.getAge() == after.getAge() && Objects.equals(before.getTeamId(), after.getTeamId())) {
+                return; // username 만 변경
+            }
+        }
+        if (event.getType() != EntityChangeType.INSERT && before.hasTeam()) {
+            remove(before.getTeamId(), before.getAge());
+        }
+        if (event.getType() != EntityChangeType.DELETE && after.hasTeam()) {
+            add(after.getTeamId(), after.getAge());
+        }
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        if (event.getType() == EntityChangeType.INSERT) {
+            jdbcTemplate.update(INSERT_TEAM, event.getTeamId());
+        } else if (event.getType() == EntityChangeType.DELETE) {
+            jdbcTemplate.update(DELETE_TEAM, event.getTeamId());
+        }
+    }
+
+    private void add(Long teamId, int age) {
+        if (jdbcTemplate.update(ADD, age, age, age, age, age, teamId) == 0) {
+            // 집계 행이 없는 팀 (재계산 전에 만들어진 팀)
+            jdbcTemplate.update(INSERT_TEAM, teamId);
+            jdbcTemplate.update(ADD, age, age, age, age, age, teamId);
+        }
+    }
+
+    private void remove(Long teamId, int age) {
+        jdbcTemplate.update(REMOVE, age, age, teamId, age, teamId, teamId);
+    }
+}
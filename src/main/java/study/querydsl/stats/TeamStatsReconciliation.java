@@ -0,0 +1,113 @@
+package study.querydsl.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * team_stats 재계산, 팀 하나씩 member.team_id 인덱스로 그 팀 회원만 집계한다.
+ * 호출한 트랜잭션 안에서 실행되므로 트랜잭션은 호출하는 쪽에서 연다.
+ *
+ * * recalculate(teamId) / recalculateMiscounted() : TeamStatsMaintainer 가 변경분을 모를 때 해당 행만 다시 계산
+ * * reconcile(teamId) : 주기적 보정 (TeamStatsReconcileJob), 값이 달랐으면 team.stats.reconcile.drift 로 기록
+ *   (0 이 아니면 변경분 반영이 누락된 것)
+ *
+ * reconcile 은 집계 행을 먼저 잠그고(for update) 다음 문장에서 집계하므로
+ * * 먼저 잠근 변경 트랜잭션이 있으면 커밋을 기다렸다가 그 변경까지 포함해서 계산하고
+ * * 이후의 변경 트랜잭션은 잠금을 기다렸다가 재계산 결과 위에 변경분을 더한다
+ * 따라서 전체를 지우고 다시 넣을 때처럼 변경분이 사라지거나 중복 키가 나지 않는다.
+ */
+@Component
+public class TeamStatsReconciliation {
+
+    private static final String AGGREGATE = "member_count = (select count(*) from member m where m.team_id = s.team_id), "
+            + "age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = s.team_id), "
+            + "min_age = (select min(m.age) from member m where m.team_id = s.team_id), "
+            + "max_age = (select max(m.age) from member m where m.team_id = s.team_id) ";
+    private static final String RECALCULATE_TEAM = "update team_stats s set " + AGGREGATE + "where s.team_id = ?";
+    private static final String RECALCULATE_MISCOUNTED = "update team_stats s set " + AGGREGATE
+            + "where s.member_count <> (select count(*) from member m where m.team_id = s.team_id)";
+    private static final String INSERT_TEAM = "insert into team_stats (team_id, member_count, age_sum, min_age, max_age) "
+            + "select t.id, 0, 0, null, null from team t where t.id = ?";
+    private static final String LOCK = "select member_count, age_sum, min_age, max_age from team_stats where team_id = ? for update";
+    private static final String ACTUAL = "select count(*) member_count, coalesce(sum(age), 0) age_sum, min(age) min_age, max(age) max_age "
+            + "from member where team_id = ?";
+    private static final String UPDATE = "update team_stats set member_count = ?, age_sum = ?, min_age = ?, max_age = ? where team_id = ?";
+    private static final String DELETE_ORPHANS = "delete from team_stats s where not exists (select 1 from team t where t.id = s.team_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter drift;
+
+    public TeamStatsReconciliation(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.drift = Counter.builder("team.stats.reconcile.drift")
+                .description("재계산 시 값이 달랐던 팀 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 팀 하나 재계산, 집계 행이 없으면 만든다 (팀이 있을 때만)
+     */
+    public void recalculate(Long teamId) {
+        if (jdbcTemplate.update(RECALCULATE_TEAM, teamId) == 0 && jdbcTemplate.update(INSERT_TEAM, teamId) > 0) {
+            jdbcTemplate.update(RECALCULATE_TEAM, teamId);
+        }
+    }
+
+    /**
+     * 회원 수가 실제와 다른 팀만 재계산 (이전 팀을 모르는 소속 변경 : 빠져나간 팀은 회원 수가 하나 많다)
+     */
+    public int recalculateMiscounted() {
+        return jdbcTemplate.update(RECALCULATE_MISCOUNTED);
+    }
+
+    public List<Long> teamIds() {
+        return jdbcTemplate.queryForList("select id from team order by id", Long.class);
+    }
+
+    /**
+     * 팀 하나 보정, 값이 달랐으면 true
+     */
+    public boolean reconcile(Long teamId) {
+        List<Map<String, Object>> stored = jdbcTemplate.queryForList(LOCK, teamId);
+        if (stored.isEmpty()) {
+            recalculate(teamId);
+            drift.increment();
+            return true;
+        }
+        Map<String, Object> actual = jdbcTemplate.queryForMap(ACTUAL, teamId);
+        if (same(stored.get(0), actual)) {
+            return false;
+        }
+        jdbcTemplate.update(UPDATE, actual.get("member_count"), actual.get("age_sum"),
+                actual.get("min_age"), actual.get("max_age"), teamId);
+        drift.increment();
+        return true;
+    }
+
+    /**
+     * 팀이 없어진 집계 행 삭제 (JPQL 벌크 삭제 등 이벤트 없이 지워진 팀)
+     */
+    public int deleteOrphans() {
+        return jdbcTemplate.update(DELETE_ORPHANS);
+    }
+
+    private static boolean same(Map<String, Object> stored, Map<String, Object> actual) {
+        for (String column : new String[]{"member_count", "age_sum", "min_age", "max_age"}) {
+            if (!Objects.equals(number(stored.get(column)), number(actual.get(column)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 드라이버마다 count/sum 의 타입이 다르므로 long 으로 비교
+    private static Long number(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
@@ -9,10 +9,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamStatsDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.monitoring.ExpectedStatements;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamStatsQueryRepository;
+import study.querydsl.stats.TeamStatsMaintainer;
+import study.querydsl.stats.TeamStatsReconciliation;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -31,6 +45,21 @@ class QuerydslBasicTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamStatsQueryRepository teamStatsQueryRepository;
+
+    @Autowired
+    TeamStatsMaintainer teamStatsMaintainer;
+
+    @Autowired
+    TeamStatsReconciliation teamStatsReconciliation;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     JPAQueryFactory queryFactory;
 
     @BeforeEach
@@ -243,6 +272,58 @@ class QuerydslBasicTest {
         assertThat(teamB.get(member.age.avg())).isEqualTo(35);
     }
 
+    // group by 대신 변경분으로 유지되는 team_stats 조회
+    @Test
+    public void teamStats() {
+        List<TeamStatsDto> result = teamStatsQueryRepository.findAll();
+        assertThat(result).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(result).extracting("memberCount").containsExactly(2L, 2L);
+        assertThat(result).extracting("avgAge").containsExactly(15.0, 35.0);
+
+        // 최댓값인 회원이 빠지면 남은 회원으로 다시 계산
+        Member member4 = queryFactory.selectFrom(member).where(member.username.eq("member4")).fetchOne();
+        em.remove(member4);
+
+        TeamStatsDto teamB = teamStatsQueryRepository.findAll().get(1);
+        assertThat(teamB.getMemberCount()).isEqualTo(1);
+        assertThat(teamB.getAgeSum()).isEqualTo(30);
+        assertThat(teamB.getMinAge()).isEqualTo(30);
+        assertThat(teamB.getMaxAge()).isEqualTo(30);
+    }
+
+    // 변경 전 상태를 모르는 수정은 새 팀과 회원 수가 맞지 않는 (이전) 팀만 다시 계산
+    @Test
+    public void teamStatsUnknownBeforeState() {
+        Member member1 = queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne();
+        Team teamB = queryFactory.selectFrom(team).where(team.name.eq("teamB")).fetchOne();
+        em.createQuery("update Member m set m.team = :team, m.age = 50 where m.id = :id")
+                .setParameter("team", teamB)
+                .setParameter("id", member1.getId())
+                .executeUpdate();
+
+        teamStatsMaintainer.onMemberChanged(new MemberChangedEvent(EntityChangeType.UPDATE, null,
+                new MemberState(member1.getId(), "member1", 50, teamB.getId(), "teamB")));
+
+        List<TeamStatsDto> result = teamStatsQueryRepository.findAll();
+        assertThat(result).extracting("memberCount").containsExactly(1L, 3L);
+        assertThat(result).extracting("ageSum").containsExactly(20L, 120L);
+        assertThat(result).extracting("maxAge").containsExactly(20, 50);
+    }
+
+    // 팀 단위 보정 : 값이 다른 팀만 고치고 drift 로 알려줌
+    @Test
+    public void teamStatsReconcile() {
+        Team teamA = queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+        jdbcTemplate.update("update team_stats set member_count = 5, min_age = 1 where team_id = ?", teamA.getId());
+
+        assertThat(teamStatsReconciliation.reconcile(teamA.getId())).isTrue();
+        assertThat(teamStatsReconciliation.reconcile(teamA.getId())).isFalse();
+
+        TeamStatsDto stats = teamStatsQueryRepository.findAll().get(0);
+        assertThat(stats.getMemberCount()).isEqualTo(2);
+        assertThat(stats.getMinAge()).isEqualTo(10);
+    }
+
     // TODO : 첫 번째 파라미터에 조인 대상, 두 번째 파라미터에 별칭(alias)
     @Test
     public void join() throws Exception {
@@ -462,4 +543,51 @@ class QuerydslBasicTest {
             System.out.println(s);
         }
     }
+
+    @Test
+    @ExpectedStatements(3) // member 1번 + 지연 로딩 team 2번 (N+1)
+    public void lazyTeamStatementCount() {
+        em.clear();
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .fetch();
+
+        for (Member m : result) {
+            m.getTeam().getName();
+        }
+    }
+
+    @Test
+    @ExpectedStatements(1) // fetch join 이면 한 번
+    public void fetchJoinStatementCount() {
+        em.clear();
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+
+        for (Member m : result) {
+            m.getTeam().getName();
+        }
+    }
+
+    @Test
+    @ExpectedStatements(1) // teamName 조건은 team 조인이 아니라 서브쿼리라서 한 문장
+    public void repositorySearchStatementCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+    }
+
+    @Test
+    @ExpectedStatements(1) // content 쿼리만, 병렬 count 쿼리는 어느 스레드에서 실행되든 세지 않음
+    public void parallelPageStatementCount() {
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+    }
 }
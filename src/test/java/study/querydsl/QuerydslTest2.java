@@ -20,6 +20,7 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.FastProjections;
 
 import javax.persistence.EntityManager;
 
@@ -189,6 +190,40 @@ public class QuerydslTest2 {
         }
     }
 
+    /**
+     * 리플렉션 없이 미리 만든 접근자로 값 세팅 (Projections.bean / fields 대체)
+     */
+    @Test
+    public void findDtoByFastSetter() {
+        List<MemberDto> result = queryFactory
+                .select(FastProjections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
+    @Test
+    public void findUserDtoByFastFields() {
+        QMember memberSub = new QMember("memberSub");
+
+        List<UserDto> result = queryFactory
+                .select(FastProjections.fields(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")
+                ))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsOnly(40);
+    }
+
     /**
      * 프로젝션과 결과 반환 @QueryProjection
      * Dto에 Querydsl 의존성이 묶이게 됨...
@@ -0,0 +1,130 @@
+package study.querydsl.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // 추출은 별도 커넥션으로 읽으므로 커밋된 데이터 필요
+class MemberCsvExporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberCsvExporter memberCsvExporter;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void appendCsvTest() {
+        assertThat(MemberCsvExporter.appendCsv(new StringBuilder(), "member1").toString()).isEqualTo("member1");
+        assertThat(MemberCsvExporter.appendCsv(new StringBuilder(), null).toString()).isEmpty();
+        assertThat(MemberCsvExporter.appendCsv(new StringBuilder(), "a,b").toString()).isEqualTo("\"a,b\"");
+        assertThat(MemberCsvExporter.appendCsv(new StringBuilder(), "say \"hi\"").toString()).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(MemberCsvExporter.appendCsv(new StringBuilder(), "a\nb").toString()).isEqualTo("\"a\nb\"");
+    }
+
+    @Test
+    public void partitionTest() {
+        Team team = new Team("exportTeam");
+        List<Member> members = members(team, 10);
+        commit(team, members);
+        try {
+            List<MemberCsvExporter.IdRange> ranges = memberCsvExporter.partition(3);
+
+            // min ~ max 를 빈틈/겹침 없이 나누고, 요청한 개수를 넘지 않음
+            assertThat(ranges).isNotEmpty().hasSizeLessThanOrEqualTo(3);
+            assertThat(ranges.get(0).getFrom()).isLessThanOrEqualTo(members.get(0).getId());
+            assertThat(ranges.get(ranges.size() - 1).getTo()).isGreaterThanOrEqualTo(members.get(9).getId());
+            for (int i = 1; i < ranges.size(); i++) {
+                assertThat(ranges.get(i).getFrom()).isEqualTo(ranges.get(i - 1).getTo() + 1);
+            }
+            ranges.forEach(range -> assertThat(range.getFrom()).isLessThanOrEqualTo(range.getTo()));
+        } finally {
+            deleteCommitted(team, members);
+        }
+    }
+
+    @Test
+    public void gzipExportTest(@TempDir Path directory) throws IOException {
+        Team team = new Team("export,Team");
+        List<Member> members = members(team, 10);
+        members.add(new Member("say \"hi\"", 99, null));
+        commit(team, members);
+        try {
+            Path target = directory.resolve("members.csv.gz");
+            MemberCsvExporter.ExportResult result = memberCsvExporter.export(target, true, 2, 2);
+
+            // 헤더 + chunk 마다 gzip 멤버가 이어 붙은 파일을 GZIPInputStream 한 번으로 끝까지 읽을 수 있어야 함
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(target)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            assertThat(lines.get(0)).isEqualTo("member_id,username,age,team_id,team_name");
+            assertThat(lines).hasSize((int) result.getRows() + 1);
+            assertThat(result.getBytes()).isEqualTo(Files.size(target));
+
+            // id 순서대로, 쉼표/따옴표는 escape
+            List<String> exported = lines.stream()
+                    .filter(line -> line.contains("exportMember") || line.contains("\"\"hi\"\""))
+                    .collect(Collectors.toList());
+            List<String> expected = members.stream()
+                    .map(m -> m.getTeam() == null
+                            ? m.getId() + ",\"say \"\"hi\"\"\",99,,"
+                            : m.getId() + "," + m.getUsername() + "," + m.getAge() + "," + team.getId() + ",\"export,Team\"")
+                    .collect(Collectors.toList());
+            assertThat(exported).containsExactlyElementsOf(expected);
+        } finally {
+            deleteCommitted(team, members);
+        }
+    }
+
+    private List<Member> members(Team team, int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member("exportMember" + i, i, team));
+        }
+        return members;
+    }
+
+    private void commit(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(team);
+            members.forEach(em::persist);
+        });
+    }
+
+    private void deleteCommitted(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            em.remove(em.find(Team.class, team.getId()));
+        });
+    }
+}
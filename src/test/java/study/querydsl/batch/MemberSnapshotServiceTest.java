@@ -0,0 +1,140 @@
+package study.querydsl.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // 덤프는 별도 커넥션으로 읽으므로 커밋된 데이터 필요
+class MemberSnapshotServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSnapshotService memberSnapshotService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void stringSlotTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(MemberSnapshotFormat.STRING_SLOT);
+        byte[] scratch = new byte[MemberSnapshotFormat.STRING_BYTES];
+
+        MemberSnapshotFormat.putString(buffer, 0, "회원1");
+        assertThat(MemberSnapshotFormat.getString(buffer, 0, scratch)).isEqualTo("회원1");
+
+        MemberSnapshotFormat.putString(buffer, 0, null);
+        assertThat(MemberSnapshotFormat.getString(buffer, 0, scratch)).isNull();
+
+        String full = "a".repeat(MemberSnapshotFormat.STRING_BYTES);
+        MemberSnapshotFormat.putString(buffer, 0, full);
+        assertThat(MemberSnapshotFormat.getString(buffer, 0, scratch)).isEqualTo(full);
+
+        // 한글은 3 bytes 이므로 21 글자 = 63 bytes 는 슬롯을 넘음
+        assertThatThrownBy(() -> MemberSnapshotFormat.putString(buffer, 0, "가".repeat(21)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void dumpAndLoadTest(@TempDir Path directory) throws Exception {
+        Team team = new Team("snapshotTeam");
+        List<Member> members = new ArrayList<>();
+        members.add(new Member("snapshotMember1", 10, team));
+        members.add(new Member("스냅샷회원2", 20, team));
+        members.add(new Member("snapshotMember3", 30, null));
+        commit(team, members);
+        try {
+            Path file = directory.resolve("members.snapshot");
+            MemberSnapshotService.SnapshotResult dumped = memberSnapshotService.dump(file);
+            assertThat(dumped.getTeams()).isGreaterThanOrEqualTo(1);
+            assertThat(dumped.getMembers()).isGreaterThanOrEqualTo(3);
+
+            // 빈 별도 DB 에 로드해서 덤프한 행이 그대로 들어가는지 확인
+            DriverManagerDataSource target = new DriverManagerDataSource("jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(target);
+            jdbcTemplate.execute("create table team (id bigint primary key, name varchar(255))");
+            jdbcTemplate.execute("create table member (member_id bigint primary key, username varchar(255), age int, team_id bigint)");
+            jdbcTemplate.execute("create sequence hibernate_sequence");
+            try {
+                MemberSnapshotService.SnapshotResult loaded = new MemberSnapshotService(target).load(file);
+                assertThat(loaded.getTeams()).isEqualTo(dumped.getTeams());
+                assertThat(loaded.getMembers()).isEqualTo(dumped.getMembers());
+
+                assertThat(jdbcTemplate.queryForObject("select name from team where id = ?", String.class, team.getId()))
+                        .isEqualTo("snapshotTeam");
+                for (Member member : members) {
+                    Map<String, Object> row = jdbcTemplate.queryForMap(
+                            "select username, age, team_id from member where member_id = ?", member.getId());
+                    assertThat(row.get("USERNAME")).isEqualTo(member.getUsername());
+                    assertThat(row.get("AGE")).isEqualTo(member.getAge());
+                    assertThat(row.get("TEAM_ID")).isEqualTo(member.getTeam() == null ? null : team.getId());
+                }
+
+                // 로드 후 시퀀스가 스냅샷의 가장 큰 id 뒤로 옮겨짐
+                Long next = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+                assertThat(next).isGreaterThan(members.get(2).getId());
+            } finally {
+                jdbcTemplate.execute("drop all objects");
+            }
+        } finally {
+            deleteCommitted(team, members);
+        }
+    }
+
+    @Test
+    public void usernameLongerThanSlotTest(@TempDir Path directory) {
+        Team team = new Team("snapshotLongTeam");
+        List<Member> members = new ArrayList<>();
+        members.add(new Member("m".repeat(MemberSnapshotFormat.STRING_BYTES + 1), 10, team));
+        commit(team, members);
+        try {
+            assertThatThrownBy(() -> memberSnapshotService.dump(directory.resolve("members.snapshot")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("longer than " + MemberSnapshotFormat.STRING_BYTES + " bytes");
+        } finally {
+            deleteCommitted(team, members);
+        }
+    }
+
+    @Test
+    public void loadAfterStartupTest(@TempDir Path directory) {
+        // 기동 후에는 로드된 행이 인메모리 검색 구조에 반영되지 않으므로 거부
+        assertThatThrownBy(() -> memberSnapshotService.load(directory.resolve("members.snapshot")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void commit(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(team);
+            members.forEach(em::persist);
+        });
+    }
+
+    private void deleteCommitted(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            em.remove(em.find(Team.class, team.getId()));
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.search.MemberSearchCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @Test
+    public void notModifiedUntilMemberChangedTest() throws Exception {
+        String etag = mockMvc.perform(get("/v1/members").param("ageGoe", "3000"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        // 변경이 없으면 304
+        mockMvc.perform(get("/v1/members").param("ageGoe", "3000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 커밋된 변경(캐시 무효화 후 버전 증가) 이후에는 새 ETag 로 다시 조회
+        memberSearchCache.onMemberChanged(new MemberChangedEvent(EntityChangeType.INSERT, null,
+                new MemberState(1L, "member1", 3001, null, null)));
+        String changed = mockMvc.perform(get("/v1/members").param("ageGoe", "3000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void etagUsesNormalizedConditionTest() throws Exception {
+        // ageGoe <= 0 은 조건 없음과 같음
+        String none = mockMvc.perform(get("/v1/members"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String zero = mockMvc.perform(get("/v1/members").param("ageGoe", "0"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(zero).isEqualTo(none);
+    }
+
+    @Test
+    public void lookupRejectsNullIdTest() throws Exception {
+        mockMvc.perform(post("/v1/members/lookup").contentType(MediaType.APPLICATION_JSON).content("[1, null]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void pageJsonShapeTest() throws Exception {
+        String json = mockMvc.perform(get("/v2/members").param("ageGoe", "4000").param("page", "1").param("size", "5")
+                        .param("sort", "username,desc"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // PageImpl 기본 직렬화와 같은 필드, 같은 순서 (/v2, /v3, /v4 응답 형태 유지)
+        JsonNode page = new ObjectMapper().readTree(json);
+        assertThat(page.fieldNames()).toIterable().containsExactly("content", "pageable", "last", "totalPages",
+                "totalElements", "size", "number", "sort", "first", "numberOfElements", "empty");
+        assertThat(page.get("number").asInt()).isEqualTo(1);
+        assertThat(page.get("size").asInt()).isEqualTo(5);
+        assertThat(page.get("first").asBoolean()).isFalse();
+        assertThat(page.get("numberOfElements").asInt()).isEqualTo(page.get("content").size());
+        assertThat(page.get("empty").asBoolean()).isEqualTo(page.get("content").size() == 0);
+        assertThat(page.get("pageable").get("pageNumber").asInt()).isEqualTo(1);
+        assertThat(page.get("pageable").get("pageSize").asInt()).isEqualTo(5);
+        assertThat(page.get("sort").get("sorted").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void smilePageUsesPageSerializerTest() throws Exception {
+        MockHttpServletResponse smile = mockMvc.perform(get("/v2/members").param("ageGoe", "4000").param("size", "5")
+                        .accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse();
+
+        // PageSerializer 형태 (JSON 과 같은 필드)
+        JsonNode page = new ObjectMapper(new SmileFactory()).readTree(smile.getContentAsByteArray());
+        assertThat(page.get("content").isArray()).isTrue();
+        assertThat(page.get("size").asInt()).isEqualTo(5);
+        assertThat(page.has("totalElements")).isTrue();
+        assertThat(page.has("pageable")).isTrue();
+
+        // 같은 URL 의 JSON 응답과 ETag 가 다르고, 캐시에는 Accept 별로 저장되도록 Vary
+        String jsonEtag = mockMvc.perform(get("/v2/members").param("ageGoe", "4000").param("size", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(smile.getHeader(HttpHeaders.ETAG)).isNotEqualTo(jsonEtag);
+        assertThat(smile.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문에서 실행된 SQL 수 검증 (@BeforeEach 에서 실행된 SQL 은 세지 않음)
+ * * @ExpectedStatements(2) : 정확히 2개
+ * * @ExpectedStatements(max = 2) : 2개 이하
+ * 영속성 컨텍스트에 쌓인 변경은 조회 전 flush 될 때 같이 세어지므로 필요하면 @BeforeEach 에서 flush/clear 해둔다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementCountExtension.class)
+public @interface ExpectedStatements {
+
+    int value() default -1;
+
+    int max() default -1;
+}
@@ -0,0 +1,47 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryCallTest {
+
+    @Test
+    public void shapeOfTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(RepositoryCall.shapeOf(new Object[]{condition, PageRequest.of(0, 10)})).isEqualTo("none");
+
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(40);
+        assertThat(RepositoryCall.shapeOf(new Object[]{condition})).isEqualTo("teamName+ageLoe");
+
+        assertThat(RepositoryCall.shapeOf(new Object[]{"member1"})).isEqualTo(RepositoryCall.NO_CONDITION);
+        assertThat(RepositoryCall.shapeOf(new Object[0])).isEqualTo(RepositoryCall.NO_CONDITION);
+    }
+
+    @Test
+    public void otherConditionShapeTest() {
+        // 여러 값/접두사/부분 문자열 조건만 있는 검색이 조건 없는 전체 조회(none)로 기록되지 않아야 함
+        MemberSearchCondition usernames = new MemberSearchCondition();
+        usernames.setUsernames(List.of("member1", "member2"));
+        assertThat(RepositoryCall.shapeOf(new Object[]{usernames})).isEqualTo("other");
+
+        MemberSearchCondition teamIds = new MemberSearchCondition();
+        teamIds.setTeamIds(List.of(1L));
+        teamIds.setAgeGoe(20);
+        assertThat(RepositoryCall.shapeOf(new Object[]{teamIds})).isEqualTo("ageGoe+other");
+
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUsernameContains("ber");
+        assertThat(RepositoryCall.shapeOf(new Object[]{contains})).isEqualTo("other");
+
+        MemberSearchCondition emptyList = new MemberSearchCondition();
+        emptyList.setTeamNames(List.of());
+        emptyList.setUsernameStartsWith(" ");
+        assertThat(RepositoryCall.shapeOf(new Object[]{emptyList})).isEqualTo("none");
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+    @Test
+    public void literalTest() {
+        String fingerprint = SqlFingerprint.of("select * from member where username = 'it''s' and age >= 10 and age <= 20.5");
+        assertThat(fingerprint).isEqualTo("select * from member where username = ? and age >= ? and age <= ?");
+
+        // 값만 다르면 같은 fingerprint, 식별자 안의 숫자는 그대로
+        assertThat(SqlFingerprint.of("select * from member where username = 'member2' and age >= 30 and age <= 40"))
+                .isEqualTo(fingerprint);
+        assertThat(SqlFingerprint.of("select member0_.member_id from member member0_"))
+                .isEqualTo("select member0_.member_id from member member0_");
+    }
+
+    @Test
+    public void inListTest() {
+        String fingerprint = SqlFingerprint.of("select * from member where member_id in (?, ?, ?)");
+        assertThat(fingerprint).isEqualTo("select * from member where member_id in (?...)");
+        assertThat(SqlFingerprint.of("select * from member where member_id in (?,?)")).isEqualTo(fingerprint);
+        assertThat(SqlFingerprint.of("select * from member where member_id in (1, 2, 3, 4)")).isEqualTo(fingerprint);
+        assertThat(SqlFingerprint.of("select * from member where username in ('a', 'b')"))
+                .isEqualTo("select * from member where username in (?...)");
+    }
+
+    @Test
+    public void commentTest() {
+        String fingerprint = SqlFingerprint.of("/* select m from Member m where m.age > 10 */ SELECT\n    m.id\n  FROM member m");
+        assertThat(fingerprint).isEqualTo("select m.id from member m");
+        assertThat(SqlFingerprint.of("select /* hint */ m.id from member m")).isEqualTo(fingerprint);
+        assertThat(SqlFingerprint.of(null)).isEmpty();
+    }
+
+    @Test
+    public void statementKindTest() {
+        assertThat(SqlFingerprint.isSelect("/* select count(m) from Member m */\n select count(m.id) from member m")).isTrue();
+        assertThat(SqlFingerprint.isCount("/* select count(m) from Member m */\n select count(m.id) from member m")).isTrue();
+        assertThat(SqlFingerprint.isCount("select  COUNT (*) from member")).isTrue();
+        assertThat(SqlFingerprint.isCount("select counter from member")).isFalse();
+        assertThat(SqlFingerprint.isSelect("/* select m from Member m */ update member set age = ?")).isFalse();
+        assertThat(SqlFingerprint.isSelect("/* unterminated")).isFalse();
+        assertThat(SqlFingerprint.isSelect(null)).isFalse();
+    }
+
+    @Test
+    public void maskLiteralsTest() {
+        String plan = "SELECT\n    MEMBER_ID\nFROM PUBLIC.MEMBER\n    /* PUBLIC.IX_MEMBER_USERNAME: USERNAME = 'member1' */\nWHERE (USERNAME = 'member1') AND (AGE >= 10)";
+        assertThat(SqlFingerprint.maskLiterals(plan))
+                .isEqualTo("SELECT\n    MEMBER_ID\nFROM PUBLIC.MEMBER\n    /* PUBLIC.IX_MEMBER_USERNAME: USERNAME = ? */\nWHERE (USERNAME = ?) AND (AGE >= ?)");
+        assertThat(SqlFingerprint.maskLiterals(null)).isNull();
+    }
+}
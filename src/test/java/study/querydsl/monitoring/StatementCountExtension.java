@@ -0,0 +1,37 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ExpectedStatements 처리, 테스트 메서드 실행 동안 StatementCounter 범위를 열어둠
+ */
+public class StatementCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementCountExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), StatementCounter.begin());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementCounter.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), StatementCounter.Scope.class);
+        scope.close();
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        ExpectedStatements expected = context.getRequiredTestMethod().getAnnotation(ExpectedStatements.class);
+        if (expected.value() >= 0) {
+            assertThat(scope.getCount()).as("statements executed").isEqualTo(expected.value());
+        }
+        if (expected.max() >= 0) {
+            assertThat(scope.getCount()).as("statements executed").isLessThanOrEqualTo(expected.max());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementCounterTest {
+
+    @Test
+    public void nestedScopeTest() {
+        try (StatementCounter.Scope outer = StatementCounter.begin()) {
+            StatementCounter.record("select 1");
+            try (StatementCounter.Scope inner = StatementCounter.begin()) {
+                StatementCounter.record("select 2");
+                assertThat(inner.getCount()).isEqualTo(1);
+            }
+            assertThat(outer.getCount()).isEqualTo(2);
+            assertThat(StatementCounter.current()).isSameAs(outer);
+        }
+        assertThat(StatementCounter.current()).isNull();
+    }
+
+    @Test
+    public void detachedTest() throws Exception {
+        // ParallelPageExecutor 의 count 쿼리가 호출 스레드에서 실행되는 경우 (CallerRunsPolicy)
+        try (StatementCounter.Scope scope = StatementCounter.begin()) {
+            StatementCounter.record("select * from member");
+            Long count = StatementCounter.detached(() -> {
+                StatementCounter.record("select count(*) from member");
+                return 1L;
+            });
+            assertThat(count).isEqualTo(1L);
+            assertThat(scope.getCount()).isEqualTo(1);
+            assertThat(StatementCounter.current()).isSameAs(scope);
+        }
+    }
+
+    @Test
+    public void rejectTest() {
+        try (StatementCounter.Scope scope = StatementCounter.begin("test", 1, true)) {
+            StatementCounter.record("select 1");
+            assertThatThrownBy(() -> StatementCounter.record("select 2"))
+                    .isInstanceOf(StatementBudgetExceededException.class);
+            assertThat(scope.getCount()).isEqualTo(1);
+            assertThat(scope.isRejected()).isTrue();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package study.querydsl.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +14,7 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -25,6 +29,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -112,4 +119,63 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllByIdInOrderTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, null);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+
+        Member managed = memberJpaRepository.findById(member2.getId()).get(); // 영속성 컨텍스트에 있는 회원
+
+        assertThat(Hibernate.isInitialized(managed.getTeam())).isFalse();
+
+        List<Member> result = memberJpaRepository.findAllByIdInOrder(
+                Arrays.asList(member3.getId(), -1L, member1.getId(), member2.getId(), null));
+
+        assertThat(result).hasSize(5);
+        assertThat(result.get(0).getUsername()).isEqualTo("member3");
+        assertThat(result.get(1)).isNull();
+        assertThat(result.get(2).getUsername()).isEqualTo("member1");
+        assertThat(result.get(3)).isSameAs(managed);
+        assertThat(result.get(4)).isNull();
+
+        // 이미 있던 회원의 team 도 함께 조회됨 (회원마다 team 을 따로 읽지 않음)
+        assertThat(Hibernate.isInitialized(result.get(2).getTeam())).isTrue();
+        assertThat(Hibernate.isInitialized(result.get(3).getTeam())).isTrue();
+    }
+
+    @Test
+    public void repositoryMetricsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        memberJpaRepository.search(condition);
+
+        // 메서드 + 조건 모양(teamName, ageGoe 설정) 태그로 지연 시간, row 수, SQL 단위 지연 시간 기록
+        Timer latency = meterRegistry.find("member.repository.latency")
+                .tags("method", "MemberJpaRepository.search", "shape", "teamName+ageGoe")
+                .timer();
+        assertThat(latency).isNotNull();
+        assertThat(latency.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("member.repository.rows")
+                .tags("method", "MemberJpaRepository.search", "shape", "teamName+ageGoe")
+                .summary()).isNotNull();
+        assertThat(meterRegistry.find("member.repository.query")
+                .tags("method", "MemberJpaRepository.search", "phase", "content")
+                .timer()).isNotNull();
+    }
+}
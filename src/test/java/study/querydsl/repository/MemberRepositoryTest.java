@@ -8,12 +8,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberFieldRows;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.SearchIndexAdvisor;
+import study.querydsl.search.TeamAgeCountMatrix;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -30,6 +38,15 @@ public class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamAgeCountMatrix teamAgeCountMatrix;
+
+    @Autowired
+    SearchIndexAdvisor searchIndexAdvisor;
+
     @Test
     public void testEntity() {
         Member member = new Member("member1", 10);
@@ -73,6 +90,33 @@ public class MemberRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void multiValueSearchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamC));
+        em.persist(new Member("member4", 40, teamC));
+
+        // 여러 값 조건은 IN 절로 (개수는 패딩되어 플랜 캐시 재사용)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamNames(List.of("teamA", "teamC", "teamA"));
+        condition.setUsernames(List.of("member1", "member2", "member3"));
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member3");
+
+        MemberSearchCondition byTeamId = new MemberSearchCondition();
+        byTeamId.setTeamIds(List.of(teamB.getId()));
+        assertThat(memberRepository.search(byTeamId)).extracting("username").containsExactly("member2");
+    }
+
     @Test
     public void searchPageSimpleTest() {
         Team teamA = new Team("teamA");
@@ -125,6 +169,79 @@ public class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageParallelTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        // 첫 페이지 컨텐츠가 페이지 사이즈보다 작으므로 count 쿼리는 취소되고 컨텐츠 사이즈로 전체 수 계산
+        // (count 는 별도 트랜잭션이라 이 테스트 트랜잭션의 데이터를 볼 수 없음)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageParallelCountTest() {
+        // count 는 별도 트랜잭션에서 실행되므로 커밋된 데이터로 확인
+        Team team = new Team("parallelTeam");
+        List<Member> members = List.of(new Member("parallel1", 10, team), new Member("parallel2", 20, team),
+                new Member("parallel3", 30, team));
+        commit(team, members);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("parallelTeam");
+
+            // 페이지가 가득 차므로 executor 에서 실행한 count 결과를 사용
+            Page<MemberTeamDto> result = readOnlyTransaction().execute(status ->
+                    memberRepository.searchPageParallel(condition, PageRequest.of(0, 2)));
+
+            assertThat(result.getContent()).extracting("username").containsExactly("parallel1", "parallel2");
+            assertThat(result.getTotalElements()).isEqualTo(3);
+        } finally {
+            deleteCommitted(team, members);
+        }
+    }
+
+    @Test
+    public void searchColumnarTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, null));
+
+        MemberTeamColumns result = memberRepository.searchColumnar(new MemberSearchCondition());
+
+        assertThat(result.size()).isEqualTo(4);
+        assertThat(result.teamDictionarySize()).isEqualTo(2); // 팀 이름은 한 번씩만 보관
+        assertThat(result.getUsername(0)).isEqualTo("member1");
+        assertThat(result.getAge(2)).isEqualTo(30);
+        assertThat(result.getTeamName(1)).isEqualTo("teamA");
+        assertThat(result.getTeamId(3)).isNull();
+    }
+
     /**
      * QuerydslPredicateExecutor
      * Pageable, Sort 지원
@@ -155,4 +272,149 @@ public class MemberRepositoryTest {
             System.out.println(findMember);
         }
     }
+
+    @Test
+    public void searchFieldsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20);
+        em.persist(member1);
+        em.persist(member2);
+
+        // team 컬럼, team 조건이 없으므로 team 조인 없이 조회
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        MemberFieldRows result = memberRepository.searchFields(condition, MemberField.parse("username,teamId"));
+
+        assertThat(result.getFields()).containsExactly(MemberField.USERNAME, MemberField.TEAM_ID);
+        assertThat(result.getRows()).extracting(row -> row[0]).containsExactlyInAnyOrder("member1", "member2");
+        assertThat(result.getRows()).extracting(row -> row[1]).containsExactlyInAnyOrder(teamA.getId(), null);
+
+        // team 조건은 서브쿼리라 조인 없이 조회
+        condition.setTeamName("teamA");
+        MemberFieldRows teamResult = memberRepository.searchFields(condition, MemberField.parse("memberId"));
+        assertThat(teamResult.getRows()).extracting(row -> row[0]).containsExactly(member1.getId());
+    }
+
+    @Test
+    public void normalizedSearchTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        // 앞뒤 공백은 제거, 단일 값 조건이 IN 목록에 포함되면 단일 값 조건만 남음
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" member1 ");
+        condition.setUsernames(List.of("member1", "member2"));
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+
+        // 모순인 조건은 DB 조회 없이 빈 페이지
+        MemberSearchCondition impossible = new MemberSearchCondition();
+        impossible.setAgeGoe(30);
+        impossible.setAgeLoe(20);
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(impossible, PageRequest.of(0, 3));
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(0);
+
+        assertThat(memberRepository.searchColumnar(impossible).size()).isEqualTo(0);
+        assertThat(memberRepository.searchFields(impossible, MemberField.parse("username")).getRows()).isEmpty();
+
+        impossible = new MemberSearchCondition();
+        impossible.setUsername("member1");
+        impossible.setUsernames(List.of("member2"));
+        assertThat(memberRepository.search(impossible)).isEmpty();
+
+        // 컬럼/필드 조회도 같은 정규화를 거침
+        assertThat(memberRepository.searchColumnar(condition).size()).isEqualTo(1);
+        assertThat(memberRepository.searchFields(condition, MemberField.parse("username")).getRows())
+                .extracting(row -> row[0]).containsExactly("member1");
+    }
+
+    @Test
+    public void usernamePrefixAndContainsSearchTest() {
+        em.persist(new Member("alice", 10));
+        em.persist(new Member("alicia", 20));
+        em.persist(new Member("malice", 30));
+
+        // 쓰기 트랜잭션 안에서는 인덱스 대신 like 로 조회됨 (결과는 같음)
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsernameStartsWith("ali");
+        assertThat(memberRepository.search(prefix)).extracting("username").containsExactlyInAnyOrder("alice", "alicia");
+
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUsernameContains("lice");
+        assertThat(memberRepository.search(contains)).extracting("username").containsExactlyInAnyOrder("alice", "malice");
+
+        contains.setUsernameStartsWith("m");
+        assertThat(memberRepository.search(contains)).extracting("username").containsExactly("malice");
+    }
+
+    @Test
+    public void teamAgeCountTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        // 쓰기 트랜잭션 안에서는 건수 행렬 대신 count 쿼리로 조회됨 (결과는 같음)
+        assertThat(teamAgeCountMatrix.count(condition)).isNull();
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(result.getTotalElements()).isEqualTo(2);
+
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        noTeam.setAgeLoe(20);
+        assertThat(memberRepository.searchPageComplex(noTeam, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchIndexAdvisorTest() {
+        List<SearchIndexAdvisor.ShapeReport> reports = searchIndexAdvisor.advise();
+
+        assertThat(reports).hasSize(16);
+        assertThat(reports.get(0).getShape()).isEqualTo("none");
+        assertThat(reports.get(0).isTableScan()).isTrue();
+        // username 조건이 있는 조합은 ix_member_username 을 사용
+        assertThat(reports).filteredOn(report -> report.getShape().contains("username"))
+                .allSatisfy(report -> assertThat(report.isTableScan()).as(report.getPlan()).isFalse());
+        // teamName 조건은 서브쿼리로 ix_team_name 에서 팀 id 를 찾고 member.team_id 인덱스로 조회
+        assertThat(reports).filteredOn(report -> report.getShape().contains("teamName"))
+                .hasSize(8)
+                .allSatisfy(report -> {
+                    assertThat(report.isTableScan()).as(report.getPlan()).isFalse();
+                    assertThat(report.getPlan()).containsIgnoringCase("ix_team_name");
+                });
+        // 나이 조건만 있는 조합은 ix_member_age
+        assertThat(reports).filteredOn(report -> report.getShape().matches("age(Goe|Loe)(\\+ageLoe)?"))
+                .hasSize(3)
+                .allSatisfy(report -> assertThat(report.isTableScan()).as(report.getPlan()).isFalse());
+        assertThat(reports).filteredOn(report -> !report.isEmptyShape()).noneMatch(SearchIndexAdvisor.ShapeReport::isTableScan);
+    }
+
+    private void commit(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(team);
+            members.forEach(em::persist);
+        });
+    }
+
+    private void deleteCommitted(Team team, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            em.remove(em.find(Team.class, team.getId()));
+        });
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
 }
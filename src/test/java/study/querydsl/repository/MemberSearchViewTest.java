@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.batch.MemberSearchViewRebuilder;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.view.enabled=true")
+@Transactional
+class MemberSearchViewTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchViewRebuilder memberSearchViewRebuilder;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void searchFromViewTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40));
+
+        // 같은 트랜잭션의 변경도 보임 (@Synchronize 로 flush 후 조회, 읽기 모델은 flush 중에 갱신)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+        // 팀 이름 변경, 소속 변경도 반영
+        teamA.setName("teamC");
+        member1.changeTeam(teamB);
+        em.flush();
+
+        condition.setTeamName("teamC");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member2");
+
+        MemberSearchCondition teamBCondition = new MemberSearchCondition();
+        teamBCondition.setTeamName("teamB");
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(teamBCondition, PageRequest.of(0, 1));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting("teamName").containsExactly("teamB");
+    }
+
+    @Test
+    public void rebuildMergesAndDeletesOrphansTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+
+        // 이벤트 없이 바뀐 데이터 : 벌크 수정, 원본이 없는 행
+        em.createQuery("update Member m set m.age = 11 where m.id = :id").setParameter("id", member1.getId()).executeUpdate();
+        jdbcTemplate.update("insert into member_search_view (member_id, username, age, team_id, team_name) values (?, ?, ?, ?, ?)",
+                -1L, "orphan", 1, null, null);
+
+        // 이미 있는 행은 중복 키 없이 수정, 원본이 없는 행은 삭제
+        memberSearchViewRebuilder.rebuild();
+
+        assertThat(jdbcTemplate.queryForObject("select age from member_search_view where member_id = ?", Integer.class, member1.getId()))
+                .isEqualTo(11);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_search_view where member_id = -1", Integer.class))
+                .isEqualTo(0);
+    }
+}
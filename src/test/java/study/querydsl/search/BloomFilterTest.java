@@ -0,0 +1,48 @@
+package study.querydsl.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    public void noFalseNegativeTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void falsePositiveRateTest() {
+        int expected = 10_000;
+        double fpp = 0.01;
+        BloomFilter filter = new BloomFilter(expected, fpp);
+        for (int i = 0; i < expected; i++) {
+            filter.put("member" + i);
+        }
+
+        // 넣지 않은 값으로 실제 오탐률 측정, 설정한 크기까지 채웠을 때 fpp 근처여야 함
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+        double measured = (double) falsePositives / probes;
+        assertThat(measured).isLessThan(fpp * 1.5);
+        assertThat(filter.expectedFpp()).isLessThan(fpp * 1.5);
+    }
+
+    @Test
+    public void emptyFilterTest() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertThat(filter.mightContain("member1")).isFalse();
+        assertThat(filter.expectedFpp()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBatchSearchResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.ExpectedStatements;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBatchSearchServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBatchSearchService memberBatchSearchService;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        // 테스트 본문의 SQL 수에 insert 가 섞이지 않도록
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @ExpectedStatements(2) // teamA/teamB 를 합친 쿼리 1 + 나이 조건 1, 같은 조건은 다시 실행하지 않음
+    public void batchSearchTest() {
+        MemberSearchCondition teamACondition = condition("teamA", 15, null);
+        MemberSearchCondition teamBCondition = condition("teamB", 15, null);
+        MemberSearchCondition ageCondition = condition(null, null, 10);
+
+        List<MemberBatchSearchResult> result = memberBatchSearchService.search(
+                List.of(teamACondition, teamBCondition, ageCondition, teamACondition));
+
+        assertThat(result).extracting("count").containsExactly(1L, 2L, 1L, 1L);
+        assertThat(result.get(0).getContent()).extracting("username").containsExactly("member2");
+        assertThat(result.get(1).getContent()).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(result.get(2).getContent()).extracting("username").containsExactly("member1");
+        assertThat(result.get(3).getIndex()).isEqualTo(3);
+    }
+
+    @Test
+    @ExpectedStatements(1) // 정규화하면 팀 이름만 다른 조건 하나로 합쳐지고, 모순인 조건은 실행하지 않음
+    public void normalizedBatchSearchTest() {
+        List<MemberBatchSearchResult> result = memberBatchSearchService.search(List.of(
+                condition(" teamA ", 15, null),
+                condition("teamB", 15, null),
+                condition("teamA", 15, null),
+                condition("teamA", 30, 20)));
+
+        // 단건 검색(/v1/members)과 같은 결과
+        assertThat(result.get(0).getContent()).extracting("username").containsExactly("member2");
+        assertThat(result.get(1).getContent()).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(result.get(2).getContent()).extracting("username").containsExactly("member2");
+        assertThat(result.get(3).getContent()).isEmpty();
+    }
+
+    private MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.entity.event.TeamChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 인덱스는 기본값이 꺼져 있으므로 켠 인스턴스를 직접 만들고, 커밋된 데이터로 로드해서 읽기 전용 트랜잭션에서 조회
+@SpringBootTest
+class MemberBitmapIndexTest {
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void bitmapIndexTest() {
+        Team teamA = new Team("bmTeamA");
+        Team teamB = new Team("bmTeamB");
+        Team teamC = new Team("bmTeamA"); // 같은 이름의 다른 팀
+        Member a1 = new Member("bmMember1", 5001, teamA);
+        Member a2 = new Member("bmMember2", 5002, teamA);
+        Member b1 = new Member("bmMember3", 5001, teamB);
+        Member c1 = new Member("bmMember4", 5003, teamC);
+        Member n1 = new Member("bmMember5", 5001, null);
+        List<Team> teams = List.of(teamA, teamB, teamC);
+        List<Member> members = List.of(a1, a2, b1, c1, n1);
+        commit(teams, members);
+        try {
+            MemberBitmapIndex index = new MemberBitmapIndex(queryFactory, transactionManager, meterRegistry, true);
+            index.load();
+
+            // 같은 이름의 팀은 모두 포함, 팀 조건끼리는 교집합
+            assertPage(index, condition("bmTeamA", null, null), PageRequest.of(0, 10), 3, a1, a2, c1);
+            MemberSearchCondition nameAndId = condition("bmTeamA", null, null);
+            nameAndId.setTeamIds(List.of(teamC.getId(), teamB.getId()));
+            assertPage(index, nameAndId, PageRequest.of(0, 10), 1, c1);
+
+            // 팀 목록 ∩ 나이
+            MemberSearchCondition teamsAndAge = condition(null, 5001, 5001);
+            teamsAndAge.setTeamNames(List.of("bmTeamA", "bmTeamB"));
+            assertPage(index, teamsAndAge, PageRequest.of(0, 10), 2, a1, b1);
+
+            // 나이만 있으면 팀 없는 회원 포함, 페이지는 id 순서로 offset 부터 (select(offset))
+            MemberSearchCondition ages = condition(null, 5001, 5003);
+            assertPage(index, ages, PageRequest.of(0, 2), 5, a1, a2);
+            assertPage(index, ages, PageRequest.of(1, 2), 5, b1, c1);
+            assertPage(index, ages, PageRequest.of(2, 2), 5, n1);
+            assertPage(index, ages, PageRequest.of(3, 2), 5);
+
+            // 처리할 수 없는 요청은 null (DB 로 조회)
+            readOnlyTransaction().executeWithoutResult(status -> {
+                assertThat(index.page(ages, Pageable.unpaged())).isNull();
+                assertThat(index.page(ages, PageRequest.of(0, 2, Sort.by("age")))).isNull();
+                MemberSearchCondition username = condition(null, 5001, null);
+                username.setUsername("bmMember1");
+                assertThat(index.page(username, PageRequest.of(0, 2))).isNull();
+            });
+
+            // 변경 전 상태를 모르는 수정은 모든 팀/나이 비트맵에서 제거 후 다시 추가
+            index.onMemberChanged(new MemberChangedEvent(EntityChangeType.UPDATE, null,
+                    new MemberState(a1.getId(), "bmMember1", 5004, teamB.getId(), "bmTeamB")));
+            assertPage(index, condition("bmTeamA", null, null), PageRequest.of(0, 10), 2, a2, c1);
+            assertPage(index, condition(null, 5001, 5001), PageRequest.of(0, 10), 2, b1, n1);
+            assertPage(index, condition("bmTeamB", 5004, null), PageRequest.of(0, 10), 1, a1);
+
+            // 팀 이름 변경
+            index.onTeamChanged(new TeamChangedEvent(EntityChangeType.UPDATE, teamB.getId(), "bmTeamB", "bmTeamZ"));
+            assertPage(index, condition("bmTeamB", null, null), PageRequest.of(0, 10), 0);
+            assertPage(index, condition("bmTeamZ", null, null), PageRequest.of(0, 10), 2, a1, b1);
+        } finally {
+            deleteCommitted(teams, members);
+        }
+    }
+
+    @Test
+    public void teamRenamedWhileLoadingTest() {
+        Team team = new Team("bmLoadTeam");
+        Member member = new Member("bmLoadMember", 5101, team);
+        List<Team> teams = List.of(team);
+        List<Member> members = List.of(member);
+        commit(teams, members);
+        try {
+            MemberBitmapIndex index = new MemberBitmapIndex(queryFactory, transactionManager, meterRegistry, true);
+
+            // 로드가 팀을 읽은 뒤 넣기 전에 커밋된 이름 변경 (로드 전 상태라 이벤트만 기록됨)
+            index.onTeamChanged(new TeamChangedEvent(EntityChangeType.UPDATE, team.getId(), "bmLoadTeam", "bmLoadTeamZ"));
+            index.load();
+
+            // 로드가 읽은 이전 이름으로 되돌리지 않음
+            assertPage(index, condition("bmLoadTeam", null, null), PageRequest.of(0, 10), 0);
+            assertPage(index, condition("bmLoadTeamZ", null, null), PageRequest.of(0, 10), 1, member);
+        } finally {
+            deleteCommitted(teams, members);
+        }
+    }
+
+    private void assertPage(MemberBitmapIndex index, MemberSearchCondition condition, Pageable pageable,
+                            long total, Member... expected) {
+        MemberBitmapIndex.PageIds page = readOnlyTransaction().execute(status -> index.page(condition, pageable));
+        assertThat(page).isNotNull();
+        assertThat(page.getTotal()).isEqualTo(total);
+        assertThat(page.getIds()).containsExactly(Arrays.stream(expected).map(Member::getId).toArray(Long[]::new));
+    }
+
+    private MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private void commit(List<Team> teams, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            teams.forEach(em::persist);
+            members.forEach(em::persist);
+        });
+    }
+
+    private void deleteCommitted(List<Team> teams, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            teams.forEach(t -> em.remove(em.find(Team.class, t.getId())));
+        });
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 캐시는 쓰기 트랜잭션 밖에서만 동작하므로 테스트 트랜잭션 없이 실행
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    SearchSingleFlight searchSingleFlight;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void cacheHitAndInvalidateTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        AtomicInteger loads = new AtomicInteger();
+        List<MemberTeamDto> rows = List.of(new MemberTeamDto(1L, "cached", 1000, null, null));
+
+        assertThat(memberSearchCache.getList(condition, () -> { loads.incrementAndGet(); return rows; })).isEqualTo(rows);
+        assertThat(memberSearchCache.getList(condition, () -> { loads.incrementAndGet(); return rows; })).isEqualTo(rows);
+        assertThat(loads).hasValue(1);
+
+        // 조건에 해당하지 않는 회원 변경은 무효화하지 않음
+        memberSearchCache.onMemberChanged(new MemberChangedEvent(EntityChangeType.INSERT, null,
+                new MemberState(2L, "young", 10, null, null)));
+        memberSearchCache.getList(condition, () -> { loads.incrementAndGet(); return rows; });
+        assertThat(loads).hasValue(1);
+
+        // 조건에 해당하는 회원 변경은 무효화
+        memberSearchCache.onMemberChanged(new MemberChangedEvent(EntityChangeType.INSERT, null,
+                new MemberState(3L, "old", 1001, null, null)));
+        memberSearchCache.getList(condition, () -> { loads.incrementAndGet(); return rows; });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void trimmedConditionSharesEntryTest() {
+        Team team = new Team("cacheTeam");
+        Member member = new Member("cacheMember", 10, team);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            em.persist(team);
+            em.persist(member);
+        });
+        try {
+            MemberSearchCondition trimmed = new MemberSearchCondition();
+            trimmed.setTeamName("cacheTeam");
+            MemberSearchCondition padded = new MemberSearchCondition();
+            padded.setTeamName(" cacheTeam ");
+
+            // 키와 저장소 조회가 같은 정규화를 거치므로 공백만 다른 조건은 같은 엔트리, 같은 결과
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            List<MemberTeamDto> direct = readOnly.execute(status -> memberRepository.search(padded));
+            assertThat(direct).extracting("username").containsExactly("cacheMember");
+
+            AtomicInteger loads = new AtomicInteger();
+            memberSearchCache.getList(trimmed, () -> { loads.incrementAndGet(); return memberRepository.search(trimmed); });
+            List<MemberTeamDto> cached = memberSearchCache.getList(padded,
+                    () -> { loads.incrementAndGet(); return memberRepository.search(padded); });
+            assertThat(loads).hasValue(1);
+            assertThat(cached).extracting("username").containsExactly("cacheMember");
+        } finally {
+            transaction.executeWithoutResult(status -> {
+                em.remove(em.find(Member.class, member.getId()));
+                em.remove(em.find(Team.class, team.getId()));
+            });
+        }
+    }
+
+    @Test
+    public void loadJoinedAfterInvalidationIsNotCachedTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(2000);
+        List<MemberTeamDto> stale = List.of(new MemberTeamDto(1L, "stale", 2000, null, null));
+        List<MemberTeamDto> fresh = List.of(new MemberTeamDto(1L, "fresh", 2000, null, null));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemberSearchKey key = MemberSearchKey.of(condition);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 검색 (변경 전 데이터를 읽는 중)
+            Future<List<MemberTeamDto>> leader = executor.submit(() -> memberSearchCache.getList(condition, () -> {
+                leaderStarted.countDown();
+                await(release);
+                return stale;
+            }));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 쓰기 커밋 → 무효화
+            memberSearchCache.invalidateAll();
+
+            // 무효화 이후에 들어와서 진행 중인 조회에 합류한 검색
+            long coalescedBefore = coalesced(key);
+            Future<List<MemberTeamDto>> follower = executor.submit(() -> memberSearchCache.getList(condition, () -> fresh));
+            for (int i = 0; i < 500 && coalesced(key) == coalescedBefore; i++) {
+                Thread.sleep(10);
+            }
+            assertThat(coalesced(key)).isGreaterThan(coalescedBefore);
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(stale);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(stale);
+
+            // 변경 전 결과는 캐시되지 않았으므로 다음 검색은 다시 조회
+            assertThat(memberSearchCache.getList(condition, () -> fresh)).isEqualTo(fresh);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private long coalesced(MemberSearchKey key) {
+        return searchSingleFlight.topKeys(Integer.MAX_VALUE).stream()
+                .filter(stats -> stats.key().equals(key))
+                .mapToLong(SearchSingleFlight.KeyStatsView::getCoalesced)
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
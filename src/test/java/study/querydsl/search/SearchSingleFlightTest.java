@@ -0,0 +1,126 @@
+package study.querydsl.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.monitoring.StatementBudgetExceededException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchSingleFlightTest {
+
+    @Test
+    public void leaderFailureIsSharedTest() throws Exception {
+        SearchSingleFlight singleFlight = new SearchSingleFlight(new SimpleMeterRegistry(), 5000, 100);
+        MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition());
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> leader = executor.submit(() -> singleFlight.execute(key, () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw new IllegalStateException("database is down");
+            }));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<List<String>> follower = executor.submit(() -> singleFlight.execute(key, () -> List.of("follower")));
+            waitForCoalesced(singleFlight, key);
+            release.countDown();
+
+            // DB 장애 같은 실패는 follower 도 같은 예외 (같은 조회를 다시 하지 않음)
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void budgetRejectionIsNotSharedTest() throws Exception {
+        SearchSingleFlight singleFlight = new SearchSingleFlight(new SimpleMeterRegistry(), 5000, 100);
+        MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition());
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> leader = executor.submit(() -> singleFlight.execute(key, () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw new StatementBudgetExceededException("leader", 1);
+            }));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<List<String>> follower = executor.submit(() -> singleFlight.execute(key, () -> List.of("follower")));
+            waitForCoalesced(singleFlight, key);
+            release.countDown();
+
+            // leader 요청의 예산 초과는 leader 만 실패, follower 는 직접 조회
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StatementBudgetExceededException.class);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).containsExactly("follower");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keyStatsTest() {
+        SearchSingleFlight singleFlight = new SearchSingleFlight(new SimpleMeterRegistry(), 5000, 2);
+        MemberSearchKey member1 = MemberSearchKey.of(condition("member1", "teamA"), PageRequest.of(0, 20));
+        MemberSearchKey member2 = MemberSearchKey.of(condition("member2", null));
+        MemberSearchKey member3 = MemberSearchKey.of(condition("member3", null));
+
+        singleFlight.execute(member1, () -> "1");
+        singleFlight.execute(member2, () -> "2");
+        singleFlight.execute(member1, () -> "1");
+        singleFlight.execute(member3, () -> "3");
+
+        // 가득 차면 가장 오래 전에 본 키(member2)만 제거
+        List<SearchSingleFlight.KeyStatsView> stats = singleFlight.topKeys(10);
+        assertThat(stats).extracting(SearchSingleFlight.KeyStatsView::key).containsExactlyInAnyOrder(member1, member3);
+
+        // 검색 값은 보여주지 않고 조건 모양과 페이징만
+        SearchSingleFlight.KeyStatsView view = stats.stream().filter(s -> s.key().equals(member1)).findFirst().orElseThrow();
+        assertThat(view.getShape()).isEqualTo("username+teamName");
+        assertThat(view.getPage()).isEqualTo(0);
+        assertThat(view.getSize()).isEqualTo(20);
+        assertThat(view.getExecutions()).isEqualTo(2);
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private static void waitForCoalesced(SearchSingleFlight singleFlight, MemberSearchKey key) throws InterruptedException {
+        for (int i = 0; i < 500 && coalesced(singleFlight) == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(coalesced(singleFlight)).isEqualTo(1);
+    }
+
+    private static long coalesced(SearchSingleFlight singleFlight) {
+        return singleFlight.topKeys(Integer.MAX_VALUE).stream()
+                .mapToLong(SearchSingleFlight.KeyStatsView::getCoalesced)
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
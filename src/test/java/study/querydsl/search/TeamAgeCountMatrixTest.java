@@ -0,0 +1,164 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 행렬은 기본값이 꺼져 있으므로 켠 인스턴스를 직접 만들고, 커밋된 데이터로 로드해서 읽기 전용 트랜잭션에서 조회
+@SpringBootTest
+class TeamAgeCountMatrixTest {
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void countTest() {
+        Team teamA = new Team("mxTeamA");
+        Team teamB = new Team("mxTeamB");
+        Team teamC = new Team("mxTeamA"); // 같은 이름의 다른 팀
+        List<Team> teams = List.of(teamA, teamB, teamC);
+        List<Member> members = List.of(
+                new Member("mxMember1", 6001, teamA),
+                new Member("mxMember2", 6002, teamA),
+                new Member("mxMember3", 6002, teamA),
+                new Member("mxMember4", 6001, teamB),
+                new Member("mxMember5", 6003, teamC),
+                new Member("mxMember6", 6001, null),
+                new Member("mxMember7", 6002, null));
+        commit(teams, members);
+        try {
+            TeamAgeCountMatrix matrix = new TeamAgeCountMatrix(queryFactory, transactionManager, meterRegistry, true);
+            matrix.load();
+
+            // 같은 이름의 팀은 모두 더함
+            assertCount(matrix, condition("mxTeamA", null, null), 4);
+            assertCount(matrix, condition("mxTeamA", 6002, 6002), 2);
+
+            // 팀 조건끼리는 교집합
+            MemberSearchCondition nameAndIds = condition("mxTeamA", null, null);
+            nameAndIds.setTeamIds(List.of(teamB.getId(), teamC.getId()));
+            assertCount(matrix, nameAndIds, 1);
+            MemberSearchCondition names = condition(null, 6001, null);
+            names.setTeamNames(List.of("mxTeamA", "mxTeamB"));
+            assertCount(matrix, names, 5);
+
+            // 팀 조건이 없으면 팀 없는 회원 포함
+            assertCount(matrix, condition(null, 6001, 6003), 7);
+            assertCount(matrix, condition(null, 6002, 6002), 3);
+            assertCount(matrix, condition(null, 6003, 6001), 0);
+
+            // username 조건은 count 쿼리로
+            MemberSearchCondition username = condition(null, 6001, null);
+            username.setUsername("mxMember1");
+            assertThat(readOnlyTransaction().execute(status -> matrix.count(username))).isNull();
+
+            // 이벤트 없이 바뀐 것처럼 어긋난 값은 다시 로드(reconcile)하면 DB 기준으로 돌아옴
+            matrix.onMemberChanged(new MemberChangedEvent(EntityChangeType.INSERT, null,
+                    new MemberState(-1L, "mxGhost", 6001, null, null)));
+            assertCount(matrix, condition(null, 6001, 6001), 4);
+            double drifted = meterRegistry.counter("member.search.count_matrix.drift").count();
+            matrix.load();
+            assertCount(matrix, condition(null, 6001, 6001), 3);
+            assertThat(meterRegistry.counter("member.search.count_matrix.drift").count()).isEqualTo(drifted + 1);
+        } finally {
+            deleteCommitted(teams, members);
+        }
+    }
+
+    @Test
+    public void committedBeforeLoadTest() {
+        Team team = new Team("mxLateTeam");
+        List<Member> members = new ArrayList<>(List.of(new Member("mxLate1", 6101, team)));
+        commit(List.of(team), members);
+        try {
+            TeamAgeCountMatrix matrix = new TeamAgeCountMatrix(queryFactory, transactionManager, meterRegistry, true);
+            matrix.load();
+            assertCount(matrix, condition("mxLateTeam", null, null), 1);
+
+            // DB 에는 커밋됐지만 커밋 이벤트(AFTER_COMMIT)는 아직 오지 않은 트랜잭션 : flush 때 발행된 이벤트만 받은 상태
+            MemberChangedEvent[] event = new MemberChangedEvent[1];
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Member late = new Member("mxLate2", 6101, em.getReference(Team.class, team.getId()));
+                em.persist(late);
+                em.flush();
+                members.add(late);
+                event[0] = new MemberChangedEvent(EntityChangeType.INSERT, null,
+                        new MemberState(late.getId(), "mxLate2", 6101, team.getId(), "mxLateTeam"));
+                matrix.onMemberWritten(event[0]);
+            });
+
+            // 이 사이의 로드는 새 회원까지 읽지만, 결과를 넣으면 늦게 오는 이벤트가 한 번 더 더하므로 넣지 않고 이전 행렬 유지
+            matrix.load();
+            assertCount(matrix, condition("mxLateTeam", null, null), 1);
+
+            matrix.onMemberChanged(event[0]);
+            matrix.onMemberCompleted(event[0]);
+            assertCount(matrix, condition("mxLateTeam", null, null), 2);
+
+            // 이벤트가 모두 끝난 뒤의 로드는 증감으로 유지한 값과 같음
+            double drifted = meterRegistry.counter("member.search.count_matrix.drift").count();
+            matrix.load();
+            assertCount(matrix, condition("mxLateTeam", null, null), 2);
+            assertThat(meterRegistry.counter("member.search.count_matrix.drift").count()).isEqualTo(drifted);
+        } finally {
+            deleteCommitted(List.of(team), members);
+        }
+    }
+
+    private void assertCount(TeamAgeCountMatrix matrix, MemberSearchCondition condition, long expected) {
+        assertThat(readOnlyTransaction().execute(status -> matrix.count(condition))).isEqualTo(expected);
+    }
+
+    private MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private void commit(List<Team> teams, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            teams.forEach(em::persist);
+            members.forEach(em::persist);
+        });
+    }
+
+    private void deleteCommitted(List<Team> teams, List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            teams.forEach(t -> em.remove(em.find(Team.class, t.getId())));
+        });
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+}
@@ -0,0 +1,137 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.event.EntityChangeType;
+import study.querydsl.entity.event.MemberChangedEvent;
+import study.querydsl.entity.event.MemberState;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 인덱스는 쓰기 트랜잭션 밖에서만 사용하므로 커밋한 뒤 읽기 전용 트랜잭션에서 검색
+@SpringBootTest
+class UsernameNgramIndexTest {
+
+    @Autowired
+    UsernameNgramIndex usernameNgramIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void findIdsTest() {
+        Member alice = new Member("ngalice", 10);
+        Member alicia = new Member("ngalicia", 20);
+        Member malice = new Member("xngalice", 30);
+        Member scattered = new Member("ngabcxbcd", 40); // abc, bcd 가 모두 있지만 "abcd" 는 포함하지 않음
+        List<Member> members = List.of(alice, alicia, malice, scattered);
+        commit(members);
+        try {
+            assertThat(usernameNgramIndex.isLoaded()).isTrue();
+            readOnlyTransaction().executeWithoutResult(status -> {
+                // 접두사는 PAD 덕분에 한 글자부터 인덱스로 처리
+                assertThat(usernameNgramIndex.findIds("ngali", null)).containsExactly(alice.getId(), alicia.getId());
+                assertThat(usernameNgramIndex.findIds("x", null)).contains(malice.getId());
+
+                // contains 는 3 글자부터, 그 미만이면 DB like 로 넘김
+                assertThat(usernameNgramIndex.findIds(null, "galice")).containsExactly(alice.getId(), malice.getId());
+                assertThat(usernameNgramIndex.findIds(null, "ng")).isNull();
+
+                // 접두사와 contains 의 trigram 목록 교집합
+                assertThat(usernameNgramIndex.findIds("ng", "licia")).containsExactly(alicia.getId());
+
+                // trigram 은 모두 있어도 실제로 포함하지 않으면 제외
+                assertThat(usernameNgramIndex.findIds(null, "ngabcd")).isEmpty();
+
+                // 없는 trigram 이면 빈 결과
+                assertThat(usernameNgramIndex.findIds(null, "zzqzz")).isEmpty();
+
+                // repository 검색도 읽기 전용 트랜잭션에서는 인덱스 결과를 사용 (like 와 결과가 같음)
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setUsernameContains("galice");
+                assertThat(memberRepository.search(condition)).extracting("username")
+                        .containsExactlyInAnyOrder("ngalice", "xngalice");
+            });
+        } finally {
+            deleteCommitted(members);
+        }
+    }
+
+    @Test
+    public void maxIdsTest() {
+        List<Member> members = List.of(new Member("ngmax1", 10), new Member("ngmax2", 20), new Member("ngmax3", 30));
+        commit(members);
+        try {
+            UsernameNgramIndex index = new UsernameNgramIndex(queryFactory, transactionManager, true, 2);
+            index.load();
+
+            readOnlyTransaction().executeWithoutResult(status -> {
+                // 결과가 max-ids 를 넘으면 null (DB 로 조회)
+                assertThat(index.findIds("ngmax", null)).isNull();
+                assertThat(index.findIds("ngmax1", null)).containsExactly(members.get(0).getId());
+            });
+        } finally {
+            deleteCommitted(members);
+        }
+    }
+
+    @Test
+    public void changedWhileLoadingTest() {
+        Member renamed = new Member("ngbefore", 10);
+        Member deleted = new Member("ngdeleted", 20);
+        List<Member> members = List.of(renamed, deleted);
+        commit(members);
+        try {
+            // load() 전에 받은 이벤트는 로드 중 변경과 같음, 로드에서 해당 id 의 DB 값은 건너뛴다
+            UsernameNgramIndex index = new UsernameNgramIndex(queryFactory, transactionManager, true, 10000);
+            index.onMemberChanged(new MemberChangedEvent(EntityChangeType.UPDATE,
+                    new MemberState(renamed.getId(), "ngbefore", 10, null, null),
+                    new MemberState(renamed.getId(), "ngafter", 10, null, null)));
+            index.onMemberChanged(new MemberChangedEvent(EntityChangeType.DELETE,
+                    new MemberState(deleted.getId(), "ngdeleted", 20, null, null), null));
+            index.load();
+
+            readOnlyTransaction().executeWithoutResult(status -> {
+                assertThat(index.findIds("ngafter", null)).containsExactly(renamed.getId());
+                assertThat(index.findIds("ngbefore", null)).isEmpty();
+                assertThat(index.findIds("ngdeleted", null)).isEmpty();
+            });
+        } finally {
+            deleteCommitted(members);
+        }
+    }
+
+    private void commit(List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> members.forEach(em::persist));
+    }
+
+    private void deleteCommitted(List<Member> members) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                members.forEach(m -> em.remove(em.find(Member.class, m.getId()))));
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+}